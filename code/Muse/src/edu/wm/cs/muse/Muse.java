@@ -2,18 +2,33 @@ package edu.wm.cs.muse;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
 import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
 import org.eclipse.jface.text.BadLocationException;
-import org.eclipse.jface.text.Document;
 import org.eclipse.text.edits.MalformedTreeException;
-import org.eclipse.text.edits.TextEdit;
 
+import edu.wm.cs.muse.dataleak.DataLeak;
 import edu.wm.cs.muse.dataleak.operators.ComplexReachability;
 import edu.wm.cs.muse.dataleak.operators.ReachabilityOperator;
 import edu.wm.cs.muse.dataleak.operators.SinkOperator;
@@ -26,10 +41,20 @@ import edu.wm.cs.muse.dataleak.schemas.SinkSchema;
 import edu.wm.cs.muse.dataleak.schemas.SourceSchema;
 import edu.wm.cs.muse.dataleak.schemas.TaintSchema;
 import edu.wm.cs.muse.dataleak.schemas.TaintSinkSchema;
-import edu.wm.cs.muse.dataleak.support.Arguments;
+import edu.wm.cs.muse.dataleak.support.ASTLeakRewriter;
+import edu.wm.cs.muse.dataleak.support.FileSelector;
 import edu.wm.cs.muse.dataleak.support.FileUtility;
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakCollector;
+import edu.wm.cs.muse.dataleak.support.LeakIdAllocator;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
+import edu.wm.cs.muse.dataleak.support.LeakRewriter;
+import edu.wm.cs.muse.dataleak.support.LeakTemplateCatalog;
+import edu.wm.cs.muse.dataleak.support.MuseRun;
+import edu.wm.cs.muse.dataleak.support.MutantSink;
+import edu.wm.cs.muse.dataleak.support.MutationManifest;
 import edu.wm.cs.muse.dataleak.support.OperatorType;
-import edu.wm.cs.muse.mdroid.ASTHelper;
+import edu.wm.cs.muse.mdroid.ParserEnvironment;
 
 /**
  *
@@ -38,7 +63,6 @@ import edu.wm.cs.muse.mdroid.ASTHelper;
  */
 public class Muse {
 
-	ASTRewrite rewriter;
 	// TODO: Does not handle anonymous declarations and try_catch clauses well.
 	// currently just ignores such methods.
 	// TODO: Make schema for inserting leaks in static methods, since regular
@@ -46,99 +70,510 @@ public class Muse {
 	// TODO: does not handle enum well since enum methods are considered static and
 	// not detected in java ast as static
 
+	private MuseRun run;
+	private ParserEnvironment parserEnvironment;
+	private LeakIdAllocator leakIdAllocator;
+	private LeakTemplateCatalog templates;
+	private MutantSink mutantSink;
+	private LeakCollector leakCollector;
+	private Map<OperatorType, File> outputRoots;
+	private Map<OperatorType, MutationManifest> manifests;
+	private String[] sourceHashes;
+	private int[] leakIdRanges;
+
+	/**
+	 * Creates an instance that only executes operators directly, or runs with the
+	 * arguments of the command line. The operators parse the second phase of SINK
+	 * and TAINTSINK in an environment of their own, without classpath or source
+	 * path.
+	 */
+	public Muse() {
+		this(new ParserEnvironment(null, null));
+	}
+
+	/**
+	 * Creates an instance for a run. Each run needs its own instance, and any
+	 * number of them can run at once.
+	 * 
+	 * @param run settings of the run
+	 */
+	public Muse(MuseRun run) {
+		this.run = run;
+	}
+
+	/**
+	 * Creates an instance that executes operators directly, parsing the second
+	 * phase of SINK and TAINTSINK in the given environment.
+	 */
+	public Muse(ParserEnvironment parserEnvironment) {
+		this.parserEnvironment = parserEnvironment;
+	}
+
 	public void runMuse(String[] args) throws MalformedTreeException, BadLocationException {
 		// Usage Error
-		if (args.length != 5) {
-			printArgumentError();
+		try {
+			run = MuseRun.fromArguments(args);
+		} catch (IllegalArgumentException e) {
+			printArgumentError(System.out);
 			return;
 		}
+		run();
+	}
 
-		Arguments.extractArguments(args);
+	/**
+	 * Mutates the app of the run with each of its operators.
+	 * 
+	 * @return false if the templates or a file could not be read, or a mutant
+	 *         could not be written, in which case the error has been printed
+	 */
+	public boolean run() throws MalformedTreeException, BadLocationException {
+		for (OperatorType operatorType : run.getOperatorTypes()) {
+			// SOURCE, SINK, TAINT, TAINTSINK and REACHABILITY
+			run.getOut().println("Input operator: " + operatorType);
+		}
+		List<OperatorType> operatorTypes = run.getOperatorTypes();
+		try {
+			templates = run.loadTemplates();
+		} catch (IOException | IllegalArgumentException e) {
+			run.getErr().println(
+					String.format("ERROR LOADING TEMPLATES \"%s\": %s", run.getTemplatesFile(), e.getMessage()));
+			return false;
+		}
+		File sourceRoot = new File(run.getRootPath());
+		outputRoots = new LinkedHashMap<OperatorType, File>();
+		for (OperatorType operatorType : operatorTypes) {
+			File outputRoot = getOutputRoot(operatorType, operatorTypes.size() > 1);
+			if (!run.isIncremental()) {
+				FileUtility.setupMutantsDirectory(sourceRoot, outputRoot, run.isLink());
+			}
+			run.getOut().println(outputRoot.getPath());
+			outputRoots.put(operatorType, outputRoot);
+		}
+		mutantSink = run.getMutantSink() != null ? run.getMutantSink() : new MutantSink() {
+			@Override
+			public void write(OperatorType operatorType, String path, String mutant) throws IOException {
+				writeMutant(new File(outputRoots.get(operatorType), path), mutant);
+			}
+		};
+		leakCollector = run.getLeakCollector() != null ? run.getLeakCollector() : new LeakCollector() {
+			@Override
+			public void collect(Leak leak) {
+				run.getOut().println(leak);
+			}
+		};
+
+		leakIdAllocator = new LeakIdAllocator(run.getIdRangeSize());
+		parserEnvironment = new ParserEnvironment(run.getBinariesFolder(), run.getRootPath());
+
+		try {
+			FileSelector selector = new FileSelector(run.getIncludes(), run.getExcludes(), run.getAppName());
+			List<String> paths = selector.select(sourceRoot, outputRoots.values().iterator().next());
+			List<Integer> ordinals = new ArrayList<Integer>();
+			manifests = null;
+			leakIdRanges = null;
+			if (run.isIncremental()) {
+				ordinals = prepareIncremental(sourceRoot, paths);
+			} else {
+				for (int i = 0; i < paths.size(); i++) {
+					ordinals.add(i);
+				}
+			}
+			try {
+				if (run.isBatch()) {
+					runBatch(sourceRoot, paths, ordinals, run.getThreads());
+				} else if (run.getThreads() > 1) {
+					runParallel(sourceRoot, paths, ordinals, run.getThreads());
+				} else {
+					for (int ordinal : ordinals) {
+						if (Thread.currentThread().isInterrupted()) {
+							throw new InterruptedIOException("Interrupted while mutating");
+						}
+						mutate(parse(sourceRoot, paths.get(ordinal), ordinal));
+					}
+				}
+			} finally {
+				if (manifests != null) {
+					// the mutants written so far are kept even if the run fails
+					for (MutationManifest manifest : manifests.values()) {
+						manifest.retain(paths);
+						manifest.save();
+					}
+				}
+			}
+		} catch (IOException e) {
+			run.getErr().println(
+					String.format("ERROR MUTATING \"%s\": %s", sourceRoot.getAbsolutePath(), e.getMessage()));
+			return false;
+		}
+		return true;
+	}
 
-		FileUtility.setupMutantsDirectory();
+	/**
+	 * Brings the copies of the app up to date with its source code, except for
+	 * the mutants, and selects the source files that have to be mutated again: the
+	 * ones that changed since the mutants were generated, or whose mutants were
+	 * generated by a different operator, version or build of Muse, rewriter,
+	 * templates or with other leak identifiers.
+	 * 
+	 * @param sourceRoot root of the original source files
+	 * @param paths      candidate source files, in processing order
+	 * @return positions of the files to mutate
+	 * @throws IOException if a file cannot be read or copied
+	 */
+	private List<Integer> prepareIncremental(File sourceRoot, List<String> paths) throws IOException {
+		manifests = new HashMap<OperatorType, MutationManifest>();
+		for (Map.Entry<OperatorType, File> output : outputRoots.entrySet()) {
+			FileUtility.updateMutantsDirectory(sourceRoot, output.getValue(), new HashSet<String>(paths),
+					run.isLink());
+			manifests.put(output.getKey(), MutationManifest.load(output.getValue(), run.getRewriterType(), templates));
+		}
+		sourceHashes = new String[paths.size()];
+		leakIdRanges = reserveLeakIdRanges(paths);
+		List<Integer> ordinals = new ArrayList<Integer>();
+		for (int i = 0; i < paths.size(); i++) {
+			File file = new File(sourceRoot, paths.get(i));
+			sourceHashes[i] = MutationManifest.hash(FileUtility.readSourceFile(file.getAbsolutePath()).toString());
+			for (OperatorType operatorType : outputRoots.keySet()) {
+				if (!isUpToDate(operatorType, paths.get(i), i)) {
+					ordinals.add(i);
+					break;
+				}
+			}
+		}
+		run.getOut().println(String.format("Mutating %d of %d files", ordinals.size(), paths.size()));
+		return ordinals;
+	}
 
-		System.out.println(Arguments.getRootPath());
+	/**
+	 * @return true if the mutant of the file for the operator was generated from
+	 *         the current source, settings and leak identifiers in an incremental
+	 *         run
+	 */
+	private boolean isUpToDate(OperatorType operatorType, String path, int ordinal) {
+		return manifests != null && new File(outputRoots.get(operatorType), path).exists()
+				&& manifests.get(operatorType).isCurrent(path, sourceHashes[ordinal], operatorType,
+						getLeakIds(ordinal).getStart());
+	}
 
-		Collection<File> files = FileUtils.listFiles(new File(Arguments.getRootPath()), TrueFileFilter.INSTANCE,
-				TrueFileFilter.INSTANCE);
+	/**
+	 * Picks the range of leak identifiers of each file in an incremental run. A
+	 * file keeps the range its mutants were recorded with, so adding or removing
+	 * other files does not change its identifiers and its mutants stay up to
+	 * date. The other files get the ranges after all the recorded ones, in
+	 * processing order. In a first run every file gets the range of its position,
+	 * as in a full run.
+	 * 
+	 * @param paths candidate source files, in processing order
+	 * @return index of the range of each file, by position
+	 */
+	private int[] reserveLeakIdRanges(List<String> paths) {
+		int[] ranges = new int[paths.size()];
+		HashSet<Integer> reserved = new HashSet<Integer>();
+		int next = 0;
+		for (int i = 0; i < paths.size(); i++) {
+			ranges[i] = -1;
+			for (OperatorType operatorType : outputRoots.keySet()) {
+				int start = manifests.get(operatorType).getLeakIdStart(paths.get(i));
+				if (start >= 0 && start % leakIdAllocator.getRangeSize() == 0
+						&& reserved.add(start / leakIdAllocator.getRangeSize())) {
+					ranges[i] = start / leakIdAllocator.getRangeSize();
+					next = Math.max(next, ranges[i] + 1);
+					break;
+				}
+			}
+		}
+		for (int i = 0; i < paths.size(); i++) {
+			if (ranges[i] < 0) {
+				ranges[i] = next++;
+			}
+		}
+		return ranges;
+	}
 
-		for (File file : files) {
-			try {
-				if (file.getName().endsWith(".java")
-						&& file.getCanonicalPath().contains(Arguments.getAppName().replace(".", "/"))
-						&& !file.getName().contains("EmmaInstrumentation.java")
-						&& !file.getName().contains("FinishListener.java")
-						&& !file.getName().contains("InstrumentedActivity.java")
-						&& !file.getName().contains("InstrumentedTest.java")
-						&& !file.getName().contains("UnitTest.java")
-						&& !file.getName().contains("SMSInstrumentedReceiver.java")) {
-					System.out.println("In file: " + file.getName());
-					// System.out.println("PROCESSING: " + file.getAbsolutePath());
-					String source = FileUtility.readSourceFile(file.getAbsolutePath()).toString();
-
-					// Creates an abstract syntax tree.
-					CompilationUnit root = ASTHelper.getAST(source, Arguments.getBinariesFolder(),
-							Arguments.getRootPath());
+	/**
+	 * @return the leak identifiers of the file at the position, reserved in
+	 *         {@link #reserveLeakIdRanges(List)} in an incremental run and from
+	 *         the position otherwise
+	 */
+	private LeakIdRange getLeakIds(int ordinal) {
+		return leakIdAllocator.getRange(leakIdRanges != null ? leakIdRanges[ordinal] : ordinal);
+	}
 
-					// Creates a new instance for describing manipulations of the given AST.
-					rewriter = ASTRewrite.create(root.getAST());
+	/**
+	 * @param operatorType the operator whose mutants are written to the folder
+	 * @param shared       true if several operators are executed in the run, in
+	 *                     which case each gets a folder named after it
+	 * @return the folder where the mutated copy of the app is written
+	 */
+	private File getOutputRoot(OperatorType operatorType, boolean shared) {
+		File mutantsFolder = new File(run.getMutantsFolder());
+		if (shared) {
+			mutantsFolder = new File(mutantsFolder, operatorType.name());
+		}
+		return new File(mutantsFolder, run.getAppName());
+	}
 
-					operatorExecution(root, rewriter, source, file, getOperatorType(Arguments.getOperator()));
+	/**
+	 * Parses and mutates the compilation units on a pool of worker threads. Each
+	 * unit draws its leak identifiers from the range reserved for its position in
+	 * the file order, so the mutants are identical to the ones produced by the
+	 * sequential path. The first failure cancels the remaining units.
+	 * 
+	 * @param sourceRoot root of the original source files
+	 * @param paths      compilation units of the app, in processing order
+	 * @param ordinals   positions of the units to mutate
+	 * @param threads    number of worker threads
+	 * @throws IOException if a file cannot be read or written
+	 */
+	private void runParallel(final File sourceRoot, List<String> paths, List<Integer> ordinals, int threads)
+			throws IOException, MalformedTreeException, BadLocationException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Void>> results = new ArrayList<Future<Void>>();
+		try {
+			for (final int ordinal : ordinals) {
+				final String path = paths.get(ordinal);
+				results.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						mutate(parse(sourceRoot, path, ordinal));
+						return null;
+					}
+				}));
+			}
+			waitFor(results);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 
+	/**
+	 * Parses all the compilation units in a single pass of the parser, without
+	 * bindings, and mutates each unit as soon as its tree is created. The parser
+	 * reads the files as they are, so a unit whose lines do not all end with a new
+	 * line is parsed again from the source that is rewritten. With more than one
+	 * thread the mutations run on a pool while the parser moves on to the next
+	 * units; otherwise they run in between, on the parsing thread. Each unit keeps
+	 * the leak identifiers of its position in the file order, so the mutants are
+	 * the same as without batch parsing.
+	 * 
+	 * @param sourceRoot root of the original source files
+	 * @param paths      compilation units of the app, in processing order
+	 * @param ordinals   positions of the units to mutate
+	 * @param threads    number of worker threads
+	 * @throws IOException if a file cannot be read or written
+	 */
+	private void runBatch(File sourceRoot, final List<String> paths, List<Integer> ordinals, int threads)
+			throws IOException, MalformedTreeException, BadLocationException {
+		final ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+		final List<Future<Void>> results = new ArrayList<Future<Void>>();
+		final Map<String, Integer> ordinalsByPath = new HashMap<String, Integer>();
+		List<File> files = new ArrayList<File>();
+		for (int ordinal : ordinals) {
+			File file = new File(sourceRoot, paths.get(ordinal));
+			ordinalsByPath.put(file.getAbsolutePath(), ordinal);
+			files.add(file);
+		}
+		try {
+			getParserEnvironment().parse(files, new FileASTRequestor() {
+				@Override
+				public void acceptAST(String sourceFilePath, final CompilationUnit root) {
+					if (Thread.currentThread().isInterrupted()
+							|| executor == null && !results.isEmpty() && failed(results.get(results.size() - 1))) {
+						return;
+					}
+					final File file = new File(sourceFilePath);
+					final int ordinal = ordinalsByPath.get(sourceFilePath);
+					Callable<Void> task = new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							mutate(read(file, paths.get(ordinal), root, ordinal));
+							return null;
+						}
+					};
+					if (executor == null) {
+						FutureTask<Void> result = new FutureTask<Void>(task);
+						result.run();
+						results.add(result);
+					} else {
+						results.add(executor.submit(task));
+					}
+				}
+			}, false);
+			waitFor(results);
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	private static boolean failed(Future<Void> result) {
+		try {
+			result.get();
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return true;
+		} catch (ExecutionException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Waits for the units in order and rethrows the first failure.
+	 * 
+	 * @throws InterruptedIOException if the thread is interrupted while waiting,
+	 *                                with its interrupt status set
+	 */
+	private static void waitFor(List<Future<Void>> results) throws IOException, BadLocationException {
+		try {
+			// the units mutated on the calling thread are done before the wait
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			for (Future<Void> result : results) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while mutating");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof BadLocationException) {
+				throw (BadLocationException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Reads the source file and creates its abstract syntax tree.
+	 */
+	private SourceUnit parse(File sourceRoot, String path, int ordinal) throws IOException {
+		File file = new File(sourceRoot, path);
+		try {
+			String source = FileUtility.readSourceFile(file.getAbsolutePath()).toString();
+			CompilationUnit root = getParserEnvironment().parse(source, false);
+			return new SourceUnit(path, file.getName(), source, root, ordinal);
+		} catch (IOException e) {
+			run.getErr().println(String.format("ERROR PROCESSING \"%s\": %s", file.getAbsolutePath(), e.getMessage()));
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the source file of a compilation unit that has already been parsed
+	 * from the file as it is. If the line terminators of the file are not the new
+	 * lines of the source that is rewritten, the offsets of the tree do not match
+	 * it, and the source is parsed again.
+	 */
+	private SourceUnit read(File file, String path, CompilationUnit root, int ordinal) throws IOException {
+		try {
+			String text = FileUtils.readFileToString(file, Charset.defaultCharset());
+			String source = FileUtility.readSource(new StringReader(text)).toString();
+			if (!source.equals(text)) {
+				root = getParserEnvironment().parse(source, false);
+			}
+			return new SourceUnit(path, file.getName(), source, root, ordinal);
+		} catch (IOException e) {
+			run.getErr().println(String.format("ERROR PROCESSING \"%s\": %s", file.getAbsolutePath(), e.getMessage()));
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the parser environment given to the instance, else the one of the
+	 *         folders of its run
+	 */
+	private ParserEnvironment getParserEnvironment() {
+		if (parserEnvironment == null) {
+			// the operators are executed directly on the instance of a run before it
+			// runs
+			parserEnvironment = new ParserEnvironment(run.getBinariesFolder(), run.getRootPath());
+		}
+		return parserEnvironment;
+	}
+
+	/**
+	 * Executes every operator of the run on the compilation unit, and writes each
+	 * mutant to the same path in the copy of the app of its operator. All the
+	 * operators work on the same tree, since rewriting does not modify it, and
+	 * each gets its own leak identifiers.
+	 */
+	private void mutate(SourceUnit unit) throws MalformedTreeException, BadLocationException, IOException {
+		// the leaks of the unit are rendered from the templates of the run and
+		// collected by its collector, on whichever thread mutates it
+		DataLeak.setThreadCatalog(templates);
+		DataLeak.setThreadOutput(run.getOut());
+		DataLeak.setThreadCollector(leakCollector);
+		try {
+			for (Map.Entry<OperatorType, File> output : outputRoots.entrySet()) {
+				OperatorType operatorType = output.getKey();
+				File file = new File(output.getValue(), unit.path);
+				if (isUpToDate(operatorType, unit.path, unit.ordinal)) {
+					continue;
+				}
+				if (outputRoots.size() > 1) {
+					run.getOut().println("In file: " + unit.name + " (" + operatorType + ")");
+				} else {
+					run.getOut().println("In file: " + unit.name);
+				}
+				try {
+					// Creates a new instance for describing manipulations of the given AST.
+					LeakRewriter rewriter = run.getRewriterType().newRewriter(unit.root);
+					LeakIdRange leakIds = getLeakIds(unit.ordinal);
+					mutantSink.write(operatorType, unit.path,
+							generateMutant(unit.root, rewriter, unit.source, operatorType, leakIds));
+					if (manifests != null) {
+						manifests.get(operatorType).record(unit.path, sourceHashes[unit.ordinal], operatorType,
+								leakIds.getStart());
+					}
+				} catch (IOException e) {
+					run.getErr().println(
+							String.format("ERROR PROCESSING \"%s\": %s", file.getAbsolutePath(), e.getMessage()));
+					throw e;
 				}
-			} catch (IOException e) {
-				System.err
-						.println(String.format("ERROR PROCESSING \"%s\": %s", file.getAbsolutePath(), e.getMessage()));
-				return;
 			}
+		} finally {
+			DataLeak.setThreadCatalog(null);
+			DataLeak.setThreadOutput(null);
+			DataLeak.setThreadCollector(null);
 		}
 	}
 
-	private OperatorType getOperatorType(String inputOperator) {
-		// SOURCE, SINK, TAINT, TAINTSINK and REACHABILITY
-		System.out.println("Input operator: " + inputOperator);
-		switch (inputOperator) {
-		case "SOURCE":
-			return OperatorType.SOURCE;
-		case "SINK":
-			return OperatorType.SINK;
-		case "TAINT":
-			return OperatorType.TAINT;
-		case "TAINTSINK":
-			return OperatorType.TAINTSINK;
-		case "REACHABILITY":
-			return OperatorType.REACHABILITY;
-		case "COMPLEXREACHABILITY":
-			return OperatorType.COMPLEXREACHABILITY;
-		default:
-			printArgumentError();
-			System.exit(-1);
-			break;
+	/**
+	 * A source file together with its contents, parsed compilation unit and
+	 * position in the file order, which reserves its leak identifiers.
+	 */
+	private static class SourceUnit {
+		final String path;
+		final String name;
+		final String source;
+		final CompilationUnit root;
+		final int ordinal;
+
+		SourceUnit(String path, String name, String source, CompilationUnit root, int ordinal) {
+			this.path = path;
+			this.name = name;
+			this.source = source;
+			this.root = root;
+			this.ordinal = ordinal;
 		}
-		return null;
 	}
 
 	/**
-	 * Converts all modifications recorded by this rewriter into an object
-	 * representing the the corresponding text edits to the source of a ITypeRoot
-	 * from which the AST was created from. The type root's source itself is not
-	 * modified by this method call.
+	 * Writes the mutant to the file, replacing it.
 	 * 
 	 * @author Amit Seal Ami
 	 * @param file   where it will be written
-	 * @param source is the content of source
-	 * @throws BadLocationException
+	 * @param mutant is the mutated source
 	 * @throws IOException
 	 */
-	private void applyChangesToFile(File file, String source, ASTRewrite rewriter)
-			throws BadLocationException, IOException {
-		Document sourceDoc = new Document(source);
-
-		TextEdit edits = rewriter.rewriteAST(sourceDoc, null);
-		// Applies the edit tree rooted by this edit to the given document.
-		edits.apply(sourceDoc);
-		FileUtils.writeStringToFile(file, sourceDoc.get(), false);
-		rewriter = null;
+	private static void writeMutant(File file, String mutant) throws IOException {
+		// the file may be a hard link to the original source, which must not change
+		Files.deleteIfExists(file.toPath());
+		FileUtils.writeStringToFile(file, mutant, false);
 	}
 
 	/**
@@ -159,114 +594,108 @@ public class Muse {
 	 */
 	public void operatorExecution(CompilationUnit root, ASTRewrite rewriter, String source, File file,
 			OperatorType operatorType) throws MalformedTreeException, BadLocationException, IOException {
+		operatorExecution(root, rewriter, source, file, operatorType, new LeakIdAllocator().getRange(0));
+	}
+
+	/**
+	 * Same as {@link #operatorExecution(CompilationUnit, ASTRewrite, String, File, OperatorType)},
+	 * drawing the leak identifiers from the given range.
+	 * 
+	 * @param leakIds identifiers reserved for the compilation unit
+	 */
+	public void operatorExecution(CompilationUnit root, ASTRewrite rewriter, String source, File file,
+			OperatorType operatorType, LeakIdRange leakIds)
+			throws MalformedTreeException, BadLocationException, IOException {
+		operatorExecution(root, new ASTLeakRewriter(rewriter), source, file, operatorType, leakIds);
+	}
 
-		File temp_file;
-		String newSource;
-		CompilationUnit newRoot;
+	/**
+	 * Same as
+	 * {@link #operatorExecution(CompilationUnit, ASTRewrite, String, File, OperatorType, LeakIdRange)},
+	 * recording the changes with the given rewriter. The second phase of SINK and
+	 * TAINTSINK uses a rewriter of the same kind.
+	 */
+	public void operatorExecution(CompilationUnit root, LeakRewriter rewriter, String source, File file,
+			OperatorType operatorType, LeakIdRange leakIds)
+			throws MalformedTreeException, BadLocationException, IOException {
+		writeMutant(file, generateMutant(root, rewriter, source, operatorType, leakIds));
+	}
+
+	/**
+	 * Executes the operator on the compilation unit and converts the changes it
+	 * recorded into the text of the mutant. The tree and the source are not
+	 * modified.
+	 * 
+	 * @return the mutated source
+	 */
+	String generateMutant(CompilationUnit root, LeakRewriter rewriter, String source,
+			OperatorType operatorType, LeakIdRange leakIds) throws MalformedTreeException, BadLocationException {
+
+		// SINK and TAINTSINK run in two phases: the second phase works on the tree of
+		// the source produced by the first one, which is only kept in memory.
 		switch (operatorType) {
 		case SINK:
 			SourceSchema sourceSchema_s = new SourceSchema();
 			root.accept(sourceSchema_s);
-			SourceOperator sourceOperator_s = new SourceOperator(rewriter, sourceSchema_s.getNodeChanges());
+			SourceOperator sourceOperator_s = new SourceOperator(rewriter, sourceSchema_s.getNodeChanges(),
+					leakIds);
 			rewriter = sourceOperator_s.InsertChanges();
-			applyChangesToFile(file, source, rewriter);
-			String sink_temp_file_path = "test/temp/temp_file.java";
-			temp_file = new File(sink_temp_file_path);
-			tempFileWriter(root, rewriter, source, temp_file);
-
-			newSource = FileUtility.readSourceFile(sink_temp_file_path).toString();
-			newRoot = ASTHelper.getAST(newSource, Arguments.getBinariesFolder(), "test/temp/");
-			rewriter = null;
-			root = newRoot;
-			source = newSource;
-			rewriter = ASTRewrite.create(root.getAST());
-			SinkSchema sinkSchema = new SinkSchema();
+			source = rewriter.apply(source);
+			root = getParserEnvironment().parse(source, false);
+			rewriter = rewriter.create(root);
+			SinkSchema sinkSchema = new SinkSchema(leakIds);
 			root.accept(sinkSchema);
 			SinkOperator sinkOperator = new SinkOperator(rewriter, sinkSchema.getNodeChanges());
 			rewriter = sinkOperator.InsertChanges();
-			applyChangesToFile(file, source, rewriter);
-			Files.delete(temp_file.toPath());
-			break;
+			return rewriter.apply(source);
 
 		case SOURCE:
 			SourceSchema sourceSchema = new SourceSchema();
 			root.accept(sourceSchema);
-			SourceOperator sourceOperator = new SourceOperator(rewriter, sourceSchema.getNodeChanges());
+			SourceOperator sourceOperator = new SourceOperator(rewriter, sourceSchema.getNodeChanges(), leakIds);
 			rewriter = sourceOperator.InsertChanges();
-			applyChangesToFile(file, source, rewriter);
-			break;
+			return rewriter.apply(source);
 
 		case REACHABILITY:
 			ReachabilitySchema reachabilitySchema = new ReachabilitySchema();
 			root.accept(reachabilitySchema);
 			ReachabilityOperator reachabilityOperator = new ReachabilityOperator(rewriter,
-					reachabilitySchema.getNodeChanges());
+					reachabilitySchema.getNodeChanges(), leakIds);
 			rewriter = reachabilityOperator.InsertChanges();
-			applyChangesToFile(file, source, rewriter);
-			break;
+			return rewriter.apply(source);
 
 		case TAINT:
 			TaintSchema taintSchema = new TaintSchema();
 			root.accept(taintSchema);
-			TaintOperator taintOperator = new TaintOperator(rewriter, taintSchema.getNodeChanges());
+			TaintOperator taintOperator = new TaintOperator(rewriter, taintSchema.getNodeChanges(), leakIds);
 			rewriter = taintOperator.InsertChanges();
-			applyChangesToFile(file, source, rewriter);
-			break;
+			return rewriter.apply(source);
 
 		case TAINTSINK:
 			TaintSchema taintSchema_ts = new TaintSchema();
 			root.accept(taintSchema_ts);
-			TaintOperator taintOperator_ts = new TaintOperator(rewriter, taintSchema_ts.getNodeChanges());
+			TaintOperator taintOperator_ts = new TaintOperator(rewriter, taintSchema_ts.getNodeChanges(), leakIds);
 			rewriter = taintOperator_ts.InsertChanges();
-			applyChangesToFile(file, source, rewriter);
-			String taintsink_temp_file_path = "test/temp/temp_file_taintsink.java";
-			temp_file = new File(taintsink_temp_file_path);
-			tempFileWriter(root, rewriter, source, temp_file);
-
-			newSource = FileUtility.readSourceFile(taintsink_temp_file_path).toString();
-			newRoot = ASTHelper.getAST(newSource, Arguments.getBinariesFolder(), "test/temp/");
-			rewriter = null;
-			root = newRoot;
-			source = newSource;
-			rewriter = ASTRewrite.create(root.getAST());
-
-			TaintSinkSchema taintSinkSchema = new TaintSinkSchema();
+			source = rewriter.apply(source);
+			root = getParserEnvironment().parse(source, false);
+			rewriter = rewriter.create(root);
+
+			TaintSinkSchema taintSinkSchema = new TaintSinkSchema(leakIds);
 			root.accept(taintSinkSchema);
 			TaintSinkOperator operator = new TaintSinkOperator(rewriter, taintSinkSchema.getFieldNodeChanges(),
 					taintSinkSchema.getMethodNodeChanges());
 			rewriter = operator.InsertChanges();
-			applyChangesToFile(file, source, rewriter);
-			Files.delete(temp_file.toPath());
-			break;
+			return rewriter.apply(source);
 		case COMPLEXREACHABILITY:
 			ComplexReachabilitySchema complexSchema = new ComplexReachabilitySchema();
 			root.accept(complexSchema);
-			ComplexReachability complexOperator = new ComplexReachability(rewriter, complexSchema.getNodeChanges());
+			ComplexReachability complexOperator = new ComplexReachability(rewriter, complexSchema.getNodeChanges(),
+					leakIds);
 			rewriter = complexOperator.InsertChanges();
-			applyChangesToFile(file, source, rewriter);
-			break;
+			return rewriter.apply(source);
 
 		}
-	}
-
-	public ASTRewrite tempFileWriter(CompilationUnit root, ASTRewrite rewriter, String source, File file)
-			throws MalformedTreeException, BadLocationException, IOException {
-		File temp_file = new File("test/temp/temp_file.java");
-
-		// Applies the edit tree rooted by this edit to the given document.
-		// edits.apply(sourceDoc);
-		Document tempDocument = new Document(source);
-		TextEdit tempEdits = rewriter.rewriteAST(tempDocument, null);
-
-		tempEdits.apply(tempDocument);
-		FileUtils.writeStringToFile(temp_file, tempDocument.get(), false);
-		FileUtils.writeStringToFile(file, tempDocument.get(), false);
-
-		// TaintSinkSchema
-		source = FileUtility.readSourceFile(temp_file.getAbsolutePath()).toString();
-		rewriter = null;
-		root = ASTHelper.getAST(tempDocument.get(), Arguments.getBinariesFolder(), "test/temp/");
-		return rewriter = ASTRewrite.create(root.getAST());
+		throw new IllegalArgumentException("Unknown operator: " + operatorType);
 	}
 
 	public ASTRewrite tempExecution(CompilationUnit root, ASTRewrite rewriter) {
@@ -276,17 +705,43 @@ public class Muse {
 		return rewriter;
 	}
 
-	private void printArgumentError() {
-		System.out.println("******* ERROR: INCORRECT USAGE *******");
-		System.out.println("Argument List:");
-		System.out.println("1. Binaries path");
-		System.out.println("2. App Source Code path");
-		System.out.println("3. App Name");
-		System.out.println("4. Mutants path");
-		System.out.println("5. MutationScheme: SOURCE, SINK, TAINT, TAINTSINK and REACHABILITY (caseSensitive).");
+	/**
+	 * Prints the arguments and options of the command line.
+	 */
+	static void printArgumentError(PrintStream out) {
+		out.println("******* ERROR: INCORRECT USAGE *******");
+		out.println("Argument List:");
+		out.println("1. Binaries path");
+		out.println("2. App Source Code path");
+		out.println("3. App Name");
+		out.println("4. Mutants path");
+		out.println("5. MutationScheme: SOURCE, SINK, TAINT, TAINTSINK and REACHABILITY (caseSensitive).");
+		out.println("   Several schemes can be given separated by commas, e.g. SINK,REACHABILITY. The mutants");
+		out.println("   of each are then written to <Mutants path>/<MutationScheme>/<App Name>");
+		out.println("Options:");
+		out.println("--threads=N: number of threads used to process the source files (default 1)");
+		out.println("--id-range=N: number of leak identifiers reserved for each source file (default "
+				+ LeakIdAllocator.DEFAULT_RANGE_SIZE + ")");
+		out.println("--batch: parses all the source files in a single pass of the parser");
+		out.println("--incremental: keeps the previous mutants and only mutates the source files that changed");
+		out.println("--link: hard links the files of the app that are not mutated instead of copying them");
+		out.println("--include=GLOB,...: patterns of the source files to mutate (default "
+				+ FileSelector.DEFAULT_INCLUDES + ")");
+		out.println("--exclude=GLOB,...: patterns of the files and folders to leave out (default "
+				+ FileSelector.DEFAULT_EXCLUDES + ")");
+		out.println("--rewriter=ast|text: applies the changes through an ASTRewrite, or inserts them directly");
+		out.println("   into the text of the source (default ast)");
+		out.println("--templates=FILE: properties file with leak templates replacing the default ones");
+		out.println("Server mode: --server [--port=N] [--jobs=N] [--token-file=FILE] [--mutants-root=FOLDER] keeps");
+		out.println("   Muse running and reads the arguments of each run from a connection on the loopback");
+		out.println("   interface that sends the token of the server first, see MuseServer");
 	}
 
-	public static void main(String[] args) throws MalformedTreeException, BadLocationException {
+	public static void main(String[] args) throws MalformedTreeException, BadLocationException, IOException {
+		if (args.length > 0 && args[0].equals("--server")) {
+			MuseServer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		new Muse().runMuse(args);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,306 @@
+package edu.wm.cs.muse;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.jface.text.BadLocationException;
+
+import edu.wm.cs.muse.dataleak.support.MuseRun;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
+
+/**
+ * Keeps Muse running between runs, so that they do not pay for starting the
+ * JVM, loading JDT and compiling the operators again. The server listens on the
+ * loopback interface only, and only serves the users who can read its token:
+ * when it starts, it writes a new random token to a file only its owner can
+ * read. Each connection sends the token on a first line, then the arguments of
+ * one run on a single line, as on the command line, separated by tabs or, if
+ * there is no tab, by spaces. The mutants of a run must be written under the
+ * mutants root of the server. The server replies with the output of the run as
+ * it is printed, followed by a last line <code>EXIT 0</code> if the run
+ * succeeded, <code>EXIT 1</code> if it failed, <code>EXIT 2</code> if the
+ * arguments are incorrect and <code>EXIT 3</code> if the token is not the one
+ * of the server. Several runs are executed at once.
+ *
+ * For example, with the default port and token file:
+ *
+ * <pre>
+ * (cat ~/.muse/server-token; echo "libs4ast /tmp/AppFoo/src AppFoo /tmp/mutants SINK") | nc 127.0.0.1 7050
+ * </pre>
+ */
+public class MuseServer {
+
+	public static final int DEFAULT_PORT = 7050;
+
+	static final String EXIT = "EXIT ";
+	static final int SUCCEEDED = 0;
+	static final int FAILED = 1;
+	static final int INCORRECT_USAGE = 2;
+	static final int UNAUTHORIZED = 3;
+
+	// time a connection has to send its token and arguments
+	private static final int REQUEST_TIMEOUT = 10000;
+
+	// compiled by every operator when the server starts
+	private static final String WARM_UP_SOURCE = "package com.example;\n\n"
+			+ "public class WarmUp {\n"
+			+ "\tprivate String name;\n\n"
+			+ "\tpublic WarmUp(String name) {\n"
+			+ "\t\tthis.name = name;\n"
+			+ "\t}\n\n"
+			+ "\tpublic String getName() {\n"
+			+ "\t\tif (name == null) {\n"
+			+ "\t\t\treturn \"\";\n"
+			+ "\t\t}\n"
+			+ "\t\treturn name;\n"
+			+ "\t}\n"
+			+ "}\n";
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService jobs;
+	private final byte[] token;
+	private final File mutantsRoot;
+
+	/**
+	 * Binds the server to the port of the loopback interface, and writes its
+	 * token to the token file.
+	 *
+	 * @param port        the port, or 0 for any free port
+	 * @param jobs        number of runs executed at once; the others wait
+	 * @param tokenFile   the file the token is written to, which only the owner
+	 *                    of the server can read
+	 * @param mutantsRoot the folder the mutants folders of the runs must be in
+	 * @throws IOException if the port cannot be bound or the token written
+	 */
+	public MuseServer(int port, int jobs, File tokenFile, File mutantsRoot) throws IOException {
+		if (jobs <= 0) {
+			throw new IllegalArgumentException("Number of jobs must be positive: " + jobs);
+		}
+		this.mutantsRoot = mutantsRoot.getCanonicalFile();
+		token = writeToken(tokenFile).getBytes(StandardCharsets.UTF_8);
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		this.jobs = Executors.newFixedThreadPool(jobs);
+	}
+
+	/**
+	 * Writes a new random token to the file, replacing the file so that only its
+	 * owner can read it.
+	 */
+	static String writeToken(File tokenFile) throws IOException {
+		byte[] random = new byte[32];
+		new SecureRandom().nextBytes(random);
+		StringBuilder token = new StringBuilder();
+		for (byte b : random) {
+			token.append(String.format("%02x", b));
+		}
+
+		File folder = tokenFile.getAbsoluteFile().getParentFile();
+		if (!folder.isDirectory() && !folder.mkdirs()) {
+			throw new IOException("Cannot create " + folder);
+		}
+		Files.deleteIfExists(tokenFile.toPath());
+		try {
+			Files.createFile(tokenFile.toPath(),
+					PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} catch (UnsupportedOperationException e) {
+			// not a POSIX file system
+			Files.createFile(tokenFile.toPath());
+			if (!tokenFile.setReadable(false, false) || !tokenFile.setReadable(true, true)
+					|| !tokenFile.setWritable(false, false) || !tokenFile.setWritable(true, true)) {
+				Files.delete(tokenFile.toPath());
+				throw new IOException("Cannot restrict the permissions of " + tokenFile);
+			}
+		}
+		Files.write(tokenFile.toPath(), (token + "\n").getBytes(StandardCharsets.UTF_8));
+		return token.toString();
+	}
+
+	/**
+	 * @return the port the server listens on
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Executes every operator on a small class, so that JDT and the operators are
+	 * loaded and compiled before the first run.
+	 */
+	public void warmUp() {
+		Mutator mutator = new Mutator();
+		for (int i = 0; i < 3; i++) {
+			for (OperatorType operatorType : OperatorType.values()) {
+				try {
+					mutator.mutate(WARM_UP_SOURCE, operatorType);
+				} catch (BadLocationException e) {
+					throw new IllegalStateException("Cannot warm up " + operatorType, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Accepts connections until the server is closed, and executes the run of
+	 * each on the pool of jobs.
+	 *
+	 * @throws IOException if a connection cannot be accepted
+	 */
+	public void serve() throws IOException {
+		while (!serverSocket.isClosed()) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (SocketException e) {
+				if (serverSocket.isClosed()) {
+					return;
+				}
+				throw e;
+			}
+			jobs.execute(new Runnable() {
+				@Override
+				public void run() {
+					handle(socket);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Stops accepting connections, and interrupts the runs in progress.
+	 */
+	public void close() throws IOException {
+		serverSocket.close();
+		jobs.shutdownNow();
+	}
+
+	private void handle(Socket socket) {
+		try {
+			try {
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				PrintStream out = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+				socket.setSoTimeout(REQUEST_TIMEOUT);
+				String clientToken = in.readLine();
+				if (clientToken == null || !MessageDigest.isEqual(token,
+						clientToken.trim().getBytes(StandardCharsets.UTF_8))) {
+					out.println("ERROR: The token is not the one of the server");
+					out.println(EXIT + UNAUTHORIZED);
+					System.out.println(String.format("Connection refused: exit %d", UNAUTHORIZED));
+					return;
+				}
+				String line = in.readLine();
+				socket.setSoTimeout(0);
+				int status = line == null ? INCORRECT_USAGE : execute(split(line), out);
+				out.println(EXIT + status);
+				System.out.println(String.format("Run %s: exit %d", line, status));
+			} finally {
+				socket.close();
+			}
+		} catch (IOException e) {
+			System.err.println("ERROR SERVING CONNECTION: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Executes a run, printing its output to the connection.
+	 */
+	int execute(String[] args, PrintStream out) throws IOException {
+		MuseRun run;
+		try {
+			run = MuseRun.fromArguments(args);
+		} catch (IllegalArgumentException e) {
+			Muse.printArgumentError(out);
+			return INCORRECT_USAGE;
+		}
+		if (!isInside(new File(run.getMutantsFolder(), run.getAppName()), mutantsRoot)) {
+			out.println("ERROR: The mutants must be written under " + mutantsRoot);
+			return INCORRECT_USAGE;
+		}
+		run.setOut(out);
+		run.setErr(out);
+		try {
+			return new Muse(run).run() ? SUCCEEDED : FAILED;
+		} catch (BadLocationException | RuntimeException e) {
+			out.println("ERROR: " + e);
+			return FAILED;
+		}
+	}
+
+	/**
+	 * @return true if the file is a descendant of the folder, once links and
+	 *         relative paths are resolved
+	 */
+	static boolean isInside(File file, File folder) throws IOException {
+		String path = file.getCanonicalPath();
+		String root = folder.getCanonicalPath();
+		return path.startsWith(root.endsWith(File.separator) ? root : root + File.separator);
+	}
+
+	static String[] split(String line) {
+		String[] args = line.trim().split(line.indexOf('\t') >= 0 ? "\t" : " +");
+		for (int i = 0; i < args.length; i++) {
+			args[i] = args[i].trim();
+		}
+		return args;
+	}
+
+	/**
+	 * Starts a server.
+	 *
+	 * @param args <code>--port=N</code>, by default {@value #DEFAULT_PORT},
+	 *             <code>--jobs=N</code>, the number of runs executed at once, by
+	 *             default the number of processors,
+	 *             <code>--token-file=FILE</code>, by default
+	 *             <code>~/.muse/server-token</code>, and
+	 *             <code>--mutants-root=FOLDER</code>, the folder the mutants of
+	 *             the runs must be written in, by default the working directory
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		int jobs = Runtime.getRuntime().availableProcessors();
+		File tokenFile = new File(System.getProperty("user.home"), ".muse/server-token");
+		File mutantsRoot = new File(".");
+		for (String arg : args) {
+			try {
+				if (arg.startsWith("--port=")) {
+					port = Integer.parseInt(arg.substring("--port=".length()));
+					continue;
+				} else if (arg.startsWith("--jobs=")) {
+					jobs = Integer.parseInt(arg.substring("--jobs=".length()));
+					continue;
+				} else if (arg.startsWith("--token-file=")) {
+					tokenFile = new File(arg.substring("--token-file=".length()));
+					continue;
+				} else if (arg.startsWith("--mutants-root=")) {
+					mutantsRoot = new File(arg.substring("--mutants-root=".length()));
+					continue;
+				}
+			} catch (NumberFormatException e) {
+				// reported below
+			}
+			System.out.println("Unknown server option " + arg + " in " + Arrays.toString(args));
+			Muse.printArgumentError(System.out);
+			return;
+		}
+		MuseServer server = new MuseServer(port, jobs, tokenFile, mutantsRoot);
+		server.warmUp();
+		System.out.println(String.format("Muse server listening on %s:%d, %d jobs at once, token in %s",
+				InetAddress.getLoopbackAddress().getHostAddress(), server.getPort(), jobs, tokenFile));
+		server.serve();
+	}
+}
@@ -0,0 +1,227 @@
+package edu.wm.cs.muse;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.BadLocationException;
+
+import edu.wm.cs.muse.dataleak.DataLeak;
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakCollector;
+import edu.wm.cs.muse.dataleak.support.LeakIdAllocator;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
+import edu.wm.cs.muse.dataleak.support.LeakTemplateCatalog;
+import edu.wm.cs.muse.dataleak.support.Mutant;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
+import edu.wm.cs.muse.dataleak.support.RewriterType;
+import edu.wm.cs.muse.mdroid.ParserEnvironment;
+
+/**
+ * Mutates source code held in memory: nothing is read from or written to the
+ * file system or printed, and the leaks each operator inserts are collected
+ * and returned with its mutant. The mutants are the same as the ones a run
+ * of {@link Muse} writes for the same units in the same order.
+ *
+ * The settings must not change while mutating, but a mutator can otherwise be
+ * used by any number of threads at once.
+ */
+public class Mutator {
+
+	// what the operators print besides their leaks is dropped
+	private static final PrintStream DISCARD = new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM);
+
+	private final ParserEnvironment parserEnvironment;
+	private final Muse muse;
+	private LeakIdAllocator leakIdAllocator = new LeakIdAllocator();
+	private RewriterType rewriterType = RewriterType.AST;
+	private LeakTemplateCatalog templates = LeakTemplateCatalog.getDefault();
+	private int threads = 1;
+
+	/**
+	 * Creates a mutator. The units are parsed on their own, since the operators
+	 * do not resolve bindings against the libraries or other sources of an app.
+	 */
+	public Mutator() {
+		parserEnvironment = new ParserEnvironment(null, null);
+		muse = new Muse(parserEnvironment);
+	}
+
+	/**
+	 * @param rangeSize number of leak identifiers reserved for each unit
+	 */
+	public void setIdRangeSize(int rangeSize) {
+		leakIdAllocator = new LeakIdAllocator(rangeSize);
+	}
+
+	public void setRewriterType(RewriterType rewriterType) {
+		this.rewriterType = rewriterType;
+	}
+
+	public void setTemplates(LeakTemplateCatalog templates) {
+		this.templates = templates;
+	}
+
+	/**
+	 * @param threads number of threads mutating the units of a single call
+	 */
+	public void setThreads(int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Mutates a single compilation unit, with the leak identifiers of the first
+	 * unit of a run.
+	 *
+	 * @param source       the source of the unit
+	 * @param operatorType the operator to execute
+	 * @return the mutant, without a path
+	 */
+	public Mutant mutate(String source, OperatorType operatorType) throws BadLocationException {
+		return mutate(null, source, 0, operatorType);
+	}
+
+	/**
+	 * Mutates the compilation units with each of the operators. The n-th unit of
+	 * the map gets the n-th range of leak identifiers, as the n-th source file of
+	 * a run, so the order of the map decides the identifiers.
+	 *
+	 * @param sources       the source of each unit, by path
+	 * @param operatorTypes the operators to execute
+	 * @return the mutants of each operator by path, in the order of the operators
+	 *         and of the units
+	 * @throws BadLocationException if the changes of an operator cannot be
+	 *                              applied, after which no other unit is mutated
+	 */
+	public Map<OperatorType, Map<String, Mutant>> mutate(Map<String, String> sources,
+			Collection<OperatorType> operatorTypes) throws BadLocationException {
+		List<OperatorType> distinct = new ArrayList<OperatorType>();
+		for (OperatorType operatorType : operatorTypes) {
+			if (!distinct.contains(operatorType)) {
+				distinct.add(operatorType);
+			}
+		}
+		List<Callable<Mutant[]>> tasks = new ArrayList<Callable<Mutant[]>>();
+		int ordinal = 0;
+		for (Map.Entry<String, String> unit : sources.entrySet()) {
+			tasks.add(newTask(unit.getKey(), unit.getValue(), ordinal++, distinct));
+		}
+
+		List<Mutant[]> results = new ArrayList<Mutant[]>();
+		if (threads == 1 || tasks.size() < 2) {
+			for (Callable<Mutant[]> task : tasks) {
+				results.add(call(task));
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+			try {
+				List<Future<Mutant[]>> futures = new ArrayList<Future<Mutant[]>>();
+				for (Callable<Mutant[]> task : tasks) {
+					futures.add(executor.submit(task));
+				}
+				for (Future<Mutant[]> future : futures) {
+					results.add(get(future));
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		Map<OperatorType, Map<String, Mutant>> mutants = new LinkedHashMap<OperatorType, Map<String, Mutant>>();
+		for (OperatorType operatorType : distinct) {
+			mutants.put(operatorType, new LinkedHashMap<String, Mutant>());
+		}
+		for (Mutant[] unitMutants : results) {
+			for (Mutant mutant : unitMutants) {
+				mutants.get(mutant.getOperatorType()).put(mutant.getPath(), mutant);
+			}
+		}
+		return mutants;
+	}
+
+	private Callable<Mutant[]> newTask(final String path, final String source, final int ordinal,
+			final Collection<OperatorType> operatorTypes) {
+		return new Callable<Mutant[]>() {
+			@Override
+			public Mutant[] call() throws BadLocationException {
+				// the unit is parsed once for all the operators
+				CompilationUnit root = parserEnvironment.parse(source, false);
+				List<Mutant> mutants = new ArrayList<Mutant>();
+				for (OperatorType operatorType : operatorTypes) {
+					mutants.add(mutate(path, source, root, ordinal, operatorType));
+				}
+				return mutants.toArray(new Mutant[mutants.size()]);
+			}
+		};
+	}
+
+	private Mutant mutate(String path, String source, int ordinal, OperatorType operatorType)
+			throws BadLocationException {
+		return mutate(path, source, parserEnvironment.parse(source, false), ordinal, operatorType);
+	}
+
+	/**
+	 * Executes the operator on the unit, collecting the leaks it inserts.
+	 */
+	private Mutant mutate(String path, String source, CompilationUnit root, int ordinal, OperatorType operatorType)
+			throws BadLocationException {
+		LeakIdRange leakIds = leakIdAllocator.getRange(ordinal);
+		final List<Leak> leaks = new ArrayList<Leak>();
+		String mutant;
+		DataLeak.setThreadCatalog(templates);
+		DataLeak.setThreadOutput(DISCARD);
+		DataLeak.setThreadCollector(new LeakCollector() {
+			@Override
+			public void collect(Leak leak) {
+				leaks.add(leak);
+			}
+		});
+		try {
+			mutant = muse.generateMutant(root, rewriterType.newRewriter(root), source, operatorType, leakIds);
+		} finally {
+			DataLeak.setThreadCatalog(null);
+			DataLeak.setThreadOutput(null);
+			DataLeak.setThreadCollector(null);
+		}
+		return new Mutant(path, operatorType, mutant, leakIds.getStart(), leaks);
+	}
+
+	private static Mutant[] call(Callable<Mutant[]> task) throws BadLocationException {
+		try {
+			return task.call();
+		} catch (BadLocationException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static Mutant[] get(Future<Mutant[]> future) throws BadLocationException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while mutating", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof BadLocationException) {
+				throw (BadLocationException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+}
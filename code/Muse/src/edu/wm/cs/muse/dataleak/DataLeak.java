@@ -1,5 +1,12 @@
 package edu.wm.cs.muse.dataleak;
 
+import java.io.PrintStream;
+
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakCollector;
+import edu.wm.cs.muse.dataleak.support.LeakTemplate;
+import edu.wm.cs.muse.dataleak.support.LeakTemplateCatalog;
+import edu.wm.cs.muse.dataleak.support.LeakTemplateCatalog.Part;
 import edu.wm.cs.muse.dataleak.support.OperatorType;
 
 /**
@@ -16,12 +23,102 @@ import edu.wm.cs.muse.dataleak.support.OperatorType;
  *         IDENTIFIER }}); Hop: dataLeak{{ IDENTIFIER }} = dataLeak{{ IDENTIFIER
  *         }};
  * 
+ *         The snippets are rendered from the templates of a
+ *         {@link LeakTemplateCatalog}.
+ * 
  */
 public class DataLeak {
 
-	// source and sink strings used by the reachability operator schema
-	private static String reachabilitySource = "String dataLeAk%d = java.util.Calendar.getInstance().getTimeZone().getDisplayName();";
-	private static String reachabilitySink = "Object throwawayLeAk%d = android.util.Log.d(\"leak-%d\", dataLeAk%d);";
+	// the catalog of the run whose leaks the thread is rendering, if any
+	private static final ThreadLocal<LeakTemplateCatalog> threadCatalog = new ThreadLocal<LeakTemplateCatalog>();
+	// where the operators print what they report besides the leaks
+	private static final ThreadLocal<PrintStream> threadOutput = new ThreadLocal<PrintStream>();
+	// and what collects the leaks they insert
+	private static final ThreadLocal<LeakCollector> threadCollector = new ThreadLocal<LeakCollector>();
+
+	// each thread renders its snippets into its own builder
+	private static final ThreadLocal<StringBuilder> builder = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder();
+		}
+	};
+
+	/**
+	 * @return the catalog the snippets are rendered from on the current thread,
+	 *         the default one if the thread has none of its own
+	 */
+	public static LeakTemplateCatalog getCatalog() {
+		LeakTemplateCatalog templates = threadCatalog.get();
+		return templates != null ? templates : LeakTemplateCatalog.getDefault();
+	}
+
+	/**
+	 * Sets the catalog the snippets are rendered from on the current thread, so
+	 * that runs mutating at once in the same JVM each use their own templates.
+	 * 
+	 * @param catalog the catalog, or null to use the default one again
+	 */
+	public static void setThreadCatalog(LeakTemplateCatalog catalog) {
+		if (catalog == null) {
+			threadCatalog.remove();
+		} else {
+			threadCatalog.set(catalog);
+		}
+	}
+
+	/**
+	 * @return where the operators print what they report on the current thread,
+	 *         by default the standard output
+	 */
+	public static PrintStream getOutput() {
+		PrintStream out = threadOutput.get();
+		return out != null ? out : System.out;
+	}
+
+	/**
+	 * Sets where the operators print what they report on the current thread, so
+	 * that each run of Muse has its own output.
+	 * 
+	 * @param out the stream, or null to print to the standard output again
+	 */
+	public static void setThreadOutput(PrintStream out) {
+		if (out == null) {
+			threadOutput.remove();
+		} else {
+			threadOutput.set(out);
+		}
+	}
+
+	/**
+	 * Sets what collects the leaks inserted on the current thread, so that each
+	 * run of Muse records its own leaks.
+	 * 
+	 * @param collector the collector, or null to print the leaks to the output
+	 *                  of the thread again
+	 */
+	public static void setThreadCollector(LeakCollector collector) {
+		if (collector == null) {
+			threadCollector.remove();
+		} else {
+			threadCollector.set(collector);
+		}
+	}
+
+	/**
+	 * Records a leak an operator inserted: hands it to the collector of the
+	 * current thread, or prints it to its output if it has none.
+	 * 
+	 * @param leak the leak
+	 */
+	public static void report(Leak leak) {
+		LeakCollector collector = threadCollector.get();
+		if (collector != null) {
+			collector.collect(leak);
+		} else {
+			getOutput().println(leak);
+		}
+	}
 
 	/**
 	 * Formats the source string and returns the correct source string based on the
@@ -33,27 +130,19 @@ public class DataLeak {
 	 * @returns the appropriate source for the operator type specified.
 	 */
 	public static String getSource(OperatorType op, int identifier) {
-		if (op == OperatorType.SINK) {
-			return String.format(
-					"final String dataLeAk%d = java.util.Calendar.getInstance().getTimeZone().getDisplayName();",
-					identifier);
-		}
-		if (op == OperatorType.SOURCE) {
-			return String.format("dataLeAk%d = java.util.Calendar.getInstance().getTimeZone().getDisplayName();",
-					identifier);
-		}
-		if (op == OperatorType.TAINT) {
-			return String.format("Object tainted_LeAk%d = android.util.Log.d(\\\"taint-leak-%d\\\", dataLeAk%d);",
-					identifier);
-		}
-		if (op == OperatorType.REACHABILITY) {
-			return reachabilitySource;
-		}
-		if (op == OperatorType.COMPLEXREACHABILITY) {
-			return String.format("String dataLeAk%d = java.util.Calendar.getInstance().getTimeZone().getDisplayName();",
-					identifier);
-		}
-		return null;
+		return render(Part.SOURCE, op, identifier, 0);
+	}
+
+	/**
+	 * Formats the declaration of the variable the source of the operator assigns,
+	 * for the operators that declare it separately.
+	 * 
+	 * @param op         is the operator type
+	 * @param identifier identifies the leak
+	 * @returns the declaration, or null if the operator has none
+	 */
+	public static String getDeclaration(OperatorType op, int identifier) {
+		return render(Part.DECLARATION, op, identifier, 0);
 	}
 
 	/**
@@ -70,15 +159,27 @@ public class DataLeak {
 	 * @returns the appropriate sink for the operator type specified.
 	 */
 	public static String getSink(OperatorType op, int sourceIdentifier, int sinkIdentifier) {
-		if (op == OperatorType.SINK) {
-			return String.format("android.util.Log.d(\"leak-%d-%d\", dataLeAk%d);", sourceIdentifier, sinkIdentifier,
-					sourceIdentifier);
-		}
-		if (op == OperatorType.REACHABILITY) {
-			return reachabilitySink;
-		}
+		return render(Part.SINK, op, sourceIdentifier, sinkIdentifier);
+	}
 
-		return null;
+	/**
+	 * Formats the sink of a leak whose source was inserted in an earlier phase,
+	 * and is only known by the name of its variable.
+	 * 
+	 * @param op             is the operator type
+	 * @param sourceName     the part of the name of the source variable after
+	 *                       the prefix
+	 * @param sinkIdentifier the identifier for the sink
+	 * @returns the appropriate sink for the operator type specified.
+	 */
+	public static String getSink(OperatorType op, String sourceName, int sinkIdentifier) {
+		LeakTemplate template = getCatalog().get(Part.SINK, op, 0);
+		if (template == null) {
+			return null;
+		}
+		StringBuilder out = builder.get();
+		out.setLength(0);
+		return template.render(out, sourceName, String.valueOf(sinkIdentifier)).toString();
 	}
 
 	/**
@@ -92,12 +193,13 @@ public class DataLeak {
 	 *          operator schema.
 	 */
 	public static String getLeak(int identifier) {
-		return String.format(reachabilitySource, identifier) + "\n"
-				+ String.format(reachabilitySink, identifier, identifier, identifier);
+		return getLeak(OperatorType.REACHABILITY, identifier);
 	}
 
 	/**
-	 * Formats the leak string and returns it. Accepts only OperatorType Reachability and ComplexReachability
+	 * Formats the leak string and returns it: the source, the path of the
+	 * operator if it has one and the sink, on separate lines. Accepts only
+	 * OperatorType Reachability and ComplexReachability
 	 * 
 	 * @param identifier an instance of the global counter utility used to identify
 	 *                   the leak string
@@ -106,36 +208,19 @@ public class DataLeak {
 	 * @returns the string version of a data leak as used by the reachability
 	 *          operator schema.
 	 */
-
 	public static String getLeak(OperatorType type, int identifier) {
-		if (type == OperatorType.REACHABILITY)
-			return String.format(reachabilitySource, identifier) + "\n"
-					+ String.format(reachabilitySink, identifier, identifier, identifier);
-		else if (type == OperatorType.COMPLEXREACHABILITY) {
-
-			String[] paths = new String[] {
-					"String[] leakArRay%d = new String[] {\"n/a\", dataLeAk%d};\n"
-							+ "String dataLeAkPath%d = leakArRay%d[leakArRay%d.length - 1];",
-					"java.util.HashMap<String, java.util.HashMap<String, String>> leakMaP%d = new java.util.HashMap<String, java.util.HashMap<String, String>>();\n"
-							+ "leakMaP%d.put(\"test\", new java.util.HashMap<String, String>());\n"
-							+ "leakMaP%d.get(\"test\").put(\"test\", dataLeAk%d);\n"
-							+ "String dataLeAkPath%d = leakMaP%d.get(\"test\").get(\"test\");",
-					"StringBuffer leakBuFFer%d = new StringBuffer();" + "for (char chAr%d : dataLeAk%d.toCharArray()) {"
-							+ "leakBuFFer%d.append(chAr%d);" + "}" + "String dataLeAkPath%d = leakBuFFer%d.toString();",
-					"String dataLeAkPath%d;" + "try {" + "throw new Exception(dataLeAk%d);"
-							+ "} catch (Exception leakErRor%d) {" + "dataLeAkPath%d = leakErRor%d.getMessage();"
-							+ "}" };
-			String source = String.format(
-					"String dataLeAk%d = java.util.Calendar.getInstance().getTimeZone().getDisplayName();", identifier);
-			String sink = String.format("android.util.Log.d(\"leak-%d\", dataLeAkPath%d);", identifier, identifier);
-			String leak = source + "\n" + String.format(paths[identifier % paths.length], identifier, identifier,
-					identifier, identifier, identifier, identifier, identifier) + "\n" + sink;
-			return leak;
-
-		}
-		else {
+		if (type != OperatorType.REACHABILITY && type != OperatorType.COMPLEXREACHABILITY) {
 			throw new IllegalArgumentException("Type must be Operator.REACHABILITY or Operator.COMPLEXREACHABILITY ");
 		}
+		LeakTemplateCatalog templates = getCatalog();
+		StringBuilder out = builder.get();
+		out.setLength(0);
+		templates.get(Part.SOURCE, type, identifier).render(out, identifier, 0).append('\n');
+		LeakTemplate path = templates.get(Part.PATH, type, identifier);
+		if (path != null) {
+			path.render(out, identifier, 0).append('\n');
+		}
+		return templates.get(Part.SINK, type, identifier).render(out, identifier, 0).toString();
 	}
 
 	/**
@@ -146,7 +231,17 @@ public class DataLeak {
 	 *          another.
 	 */
 	public static String getHop(int identifierOne, int identifierTwo) {
-		return String.format("String dataLeAk%d = dataLeAk%d", identifierOne, identifierTwo);
+		return "String dataLeAk" + identifierOne + " = dataLeAk" + identifierTwo;
+	}
+
+	private static String render(Part part, OperatorType op, int identifier, int sinkIdentifier) {
+		LeakTemplate template = getCatalog().get(part, op, identifier);
+		if (template == null) {
+			return null;
+		}
+		StringBuilder out = builder.get();
+		out.setLength(0);
+		return template.render(out, identifier, sinkIdentifier).toString();
 	}
 
 }
@@ -2,36 +2,29 @@ package edu.wm.cs.muse.dataleak.operators;
 
 import java.util.ArrayList;
 
-import org.eclipse.jdt.core.dom.ASTNode;
-import org.eclipse.jdt.core.dom.Statement;
-import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
-import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
-
 import edu.wm.cs.muse.dataleak.DataLeak;
+import edu.wm.cs.muse.dataleak.support.Leak;
 import edu.wm.cs.muse.dataleak.support.OperatorType;
-import edu.wm.cs.muse.dataleak.support.Utility;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
+import edu.wm.cs.muse.dataleak.support.LeakRewriter;
 import edu.wm.cs.muse.dataleak.support.node_containers.ReachabilityNodeChangeContainers;
 
 public class ComplexReachability extends ReachabilityOperator {
 
-	public ComplexReachability(ASTRewrite rewriter, ArrayList<ReachabilityNodeChangeContainers> nodeChanges) {
-		super(rewriter, nodeChanges);
+	public ComplexReachability(LeakRewriter rewriter, ArrayList<ReachabilityNodeChangeContainers> nodeChanges,
+			LeakIdRange leakIds) {
+		super(rewriter, nodeChanges, leakIds);
 		// TODO Auto-generated constructor stub
 	}
 
 	@Override
-	public ASTRewrite InsertChanges() {
+	public LeakRewriter InsertChanges() {
 		for (int i = 0; i < nodeChanges.size(); i++) {
 
 			ReachabilityNodeChangeContainers nodeChange = nodeChanges.get(i);
+			int leakId = leakIds.getAndIncrement();
 
-			System.out.println(String.format(nodeChange.changedSource, Utility.COUNTER_GLOBAL));
-
-			Statement placeHolder = (Statement) rewriter.createStringPlaceholder(
-					DataLeak.getLeak(OperatorType.COMPLEXREACHABILITY, Utility.COUNTER_GLOBAL),
-					ASTNode.EMPTY_STATEMENT);
-
-			Utility.COUNTER_GLOBAL++;
+			DataLeak.report(new Leak(leakId, Leak.NONE, nodeChange.location));
 
 			/*
 			 * Uses the rewriter to create an AST for the SinkSchema to utilize Then creates
@@ -39,8 +32,8 @@ public class ComplexReachability extends ReachabilityOperator {
 			 * visitor on the visit The rewriter implements the specified changes made by
 			 * the sink operator
 			 */
-			ListRewrite listRewrite = rewriter.getListRewrite(nodeChange.node, nodeChange.propertyDescriptor);
-			listRewrite.insertAt(placeHolder, nodeChange.index, null);
+			rewriter.insertAt(nodeChange.node, nodeChange.propertyDescriptor,
+					DataLeak.getLeak(OperatorType.COMPLEXREACHABILITY, leakId), nodeChange.index);
 		}
 		return rewriter;
 	}
@@ -2,13 +2,10 @@ package edu.wm.cs.muse.dataleak.operators;
 
 import java.util.ArrayList;
 
-import org.eclipse.jdt.core.dom.ASTNode;
-import org.eclipse.jdt.core.dom.Statement;
-import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
-import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
-
 import edu.wm.cs.muse.dataleak.DataLeak;
-import edu.wm.cs.muse.dataleak.support.Utility;
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
+import edu.wm.cs.muse.dataleak.support.LeakRewriter;
 import edu.wm.cs.muse.dataleak.support.node_containers.ReachabilityNodeChangeContainers;
 
 /**
@@ -19,38 +16,37 @@ import edu.wm.cs.muse.dataleak.support.node_containers.ReachabilityNodeChangeCon
  */
 public class ReachabilityOperator {
 	ArrayList<ReachabilityNodeChangeContainers> nodeChanges;
-	ASTRewrite rewriter;
+	LeakRewriter rewriter;
+	LeakIdRange leakIds;
 
-	public ReachabilityOperator(ASTRewrite rewriter, ArrayList<ReachabilityNodeChangeContainers> nodeChanges) {
+	public ReachabilityOperator(LeakRewriter rewriter, ArrayList<ReachabilityNodeChangeContainers> nodeChanges,
+			LeakIdRange leakIds) {
 		this.rewriter = rewriter;
 		this.nodeChanges = nodeChanges;
+		this.leakIds = leakIds;
 	}
 
 	/**
-	 * modifies the ASTRewrite based on the nodeChanges and returns it.
+	 * modifies the rewriter based on the nodeChanges and returns it.
 	 * 
 	 * @return
 	 */
-	public ASTRewrite InsertChanges() {
+	public LeakRewriter InsertChanges() {
 		for (int i = 0; i < nodeChanges.size(); i++) {
 
 			ReachabilityNodeChangeContainers nodeChange = nodeChanges.get(i);
+			int leakId = leakIds.getAndIncrement();
 
-			System.out.println(String.format(nodeChange.changedSource, Utility.COUNTER_GLOBAL));
-
-			Statement placeHolder = (Statement) rewriter
-					.createStringPlaceholder(DataLeak.getLeak(Utility.COUNTER_GLOBAL), ASTNode.EMPTY_STATEMENT);
+			DataLeak.report(new Leak(leakId, Leak.NONE, nodeChange.location));
 
-			Utility.COUNTER_GLOBAL++;
-			
 			/*
 			 * Uses the rewriter to create an AST for the SinkSchema to utilize Then
 			 * creates a new instance to manipulate the AST The root node then accepts the
 			 * schema visitor on the visit The rewriter implements the specified changes
 			 * made by the sink operator
 			 */
-			ListRewrite listRewrite = rewriter.getListRewrite(nodeChange.node, nodeChange.propertyDescriptor);
-			listRewrite.insertAt(placeHolder, nodeChange.index, null);
+			rewriter.insertAt(nodeChange.node, nodeChange.propertyDescriptor, DataLeak.getLeak(leakId),
+					nodeChange.index);
 		}
 		return rewriter;
 	}
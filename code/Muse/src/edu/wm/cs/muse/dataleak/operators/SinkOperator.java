@@ -5,12 +5,11 @@ import java.util.HashMap;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
-import org.eclipse.jdt.core.dom.Statement;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
-import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
-import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
 
 import edu.wm.cs.muse.dataleak.DataLeak;
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakRewriter;
 import edu.wm.cs.muse.dataleak.support.OperatorType;
 import edu.wm.cs.muse.dataleak.support.node_containers.SinkNodeChangeContainers;
 
@@ -21,23 +20,23 @@ import edu.wm.cs.muse.dataleak.support.node_containers.SinkNodeChangeContainers;
 
 public class SinkOperator {
 	ArrayList<SinkNodeChangeContainers> nodeChanges;
-	ASTRewrite rewriter;
+	LeakRewriter rewriter;
 	HashMap<Integer, Integer> repeatCounts = new HashMap<Integer, Integer>();
 
-	public SinkOperator(ASTRewrite rewriter) {
+	public SinkOperator(LeakRewriter rewriter) {
 		this.rewriter = rewriter;
 	}
 	
-	public SinkOperator(ASTRewrite rewriter, ArrayList<SinkNodeChangeContainers> nodeChanges) {
+	public SinkOperator(LeakRewriter rewriter, ArrayList<SinkNodeChangeContainers> nodeChanges) {
 		this.rewriter = rewriter;
 		this.nodeChanges = nodeChanges;
 	}
 	
 	/**
-	 * Modifies the ASTRewrite to swap between insertions based on the nodeChanges and returns it.
+	 * Modifies the rewriter to swap between insertions based on the nodeChanges and returns it.
 	 * @return
 	 */
-	public ASTRewrite InsertChanges() {
+	public LeakRewriter InsertChanges() {
 
 		for (SinkNodeChangeContainers nodeChange : nodeChanges) {
 		
@@ -56,12 +55,10 @@ public class SinkOperator {
 	
 	void insertSink(ASTNode node, int index, int count, ChildListPropertyDescriptor nodeProperty,
 			ASTNode method) {
-		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
 		int cur = repeatCounts.containsKey(count) ? repeatCounts.get(count) : -1;
 		repeatCounts.put(count, cur + 1);
 		
-		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(DataLeak.getSink(OperatorType.SINK, count, repeatCounts.get(count)), ASTNode.EMPTY_STATEMENT);
-		listRewrite.insertAt(placeHolder, index, null);
+		rewriter.insertAt(node, nodeProperty, DataLeak.getSink(OperatorType.SINK, count, repeatCounts.get(count)), index);
 		String methodName = ((MethodDeclaration) method).getName().toString();
 		String className = "";
 		method = method.getParent();
@@ -75,13 +72,11 @@ public class SinkOperator {
 			}
 			method = method.getParent();
 		}
-		System.out.println(String.format("leak-%d-%d: %s.%s", count, repeatCounts.get(count), className, methodName));
+		DataLeak.report(new Leak(count, repeatCounts.get(count), className + "." + methodName));
 	}
 
 	void insertSource(ASTNode node, int index, ChildListPropertyDescriptor nodeProperty, int count) {
-		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
-		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(DataLeak.getSource(OperatorType.SINK, count), ASTNode.EMPTY_STATEMENT);
-		listRewrite.insertAt(placeHolder, index, null);
+		rewriter.insertAt(node, nodeProperty, DataLeak.getSource(OperatorType.SINK, count), index);
 	}
 
 }
@@ -4,13 +4,14 @@ import java.util.ArrayList;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
-import org.eclipse.jdt.core.dom.Statement;
-import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
-import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
 
 import edu.wm.cs.muse.dataleak.DataLeak;
 import edu.wm.cs.muse.dataleak.support.OperatorType;
-import edu.wm.cs.muse.dataleak.support.Utility;
+import edu.wm.cs.muse.dataleak.support.SchemaOperatorUtility;
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
+import edu.wm.cs.muse.dataleak.support.LeakRewriter;
 import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainers;
 import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainers.INSERTION_TYPE;
 
@@ -24,22 +25,23 @@ import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainer
 public class SourceOperator {
 
 	ArrayList<SourceNodeChangeContainers> nodeChanges;
-	ASTRewrite rewriter;
+	LeakRewriter rewriter;
+	LeakIdRange leakIds;
 
-	public SourceOperator(ASTRewrite rewriter, ArrayList<SourceNodeChangeContainers> nodeChanges) {
+	public SourceOperator(LeakRewriter rewriter, ArrayList<SourceNodeChangeContainers> nodeChanges,
+			LeakIdRange leakIds) {
 		this.rewriter = rewriter;
 		this.nodeChanges = nodeChanges;
+		this.leakIds = leakIds;
 	}
 
 	/**
-	 * Modifies the ASTRewrite to swap between insertions based on the nodeChanges
+	 * Modifies the rewriter to swap between insertions based on the nodeChanges
 	 * and returns it.
 	 * 
 	 * @return
 	 */
-	public ASTRewrite InsertChanges() {
-//		Utility.COUNTER_GLOBAL = 0;
-
+	public LeakRewriter InsertChanges() {
 		for (SourceNodeChangeContainers nodeChange : nodeChanges) {
 
 			// if (nodeChange.insertionType == 0)
@@ -55,18 +57,15 @@ public class SourceOperator {
 	}
 
 	public void insertInMethodBody(ASTNode node, int index, ChildListPropertyDescriptor nodeProperty) {
-		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
-		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(
-				DataLeak.getSource(OperatorType.SOURCE, Utility.COUNTER_GLOBAL), ASTNode.EMPTY_STATEMENT);
-		Utility.COUNTER_GLOBAL++;
-		listRewrite.insertAt(placeHolder, index, null);
+		int identifier = leakIds.getAndIncrement();
+		rewriter.insertAt(node, nodeProperty, DataLeak.getSource(OperatorType.SOURCE, identifier), index);
+		DataLeak.report(new Leak(identifier, Leak.NONE, SchemaOperatorUtility.getClassNameOfMethod(node) + "."
+				+ ((MethodDeclaration) node.getParent()).getName()));
 	}
 
 	private void insertVariableDeclaration(ASTNode node, int index, ChildListPropertyDescriptor nodeProperty) {
-		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
-		String variable = String.format("String dataLeAk%d = \"\";", Utility.COUNTER_GLOBAL);
-		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(variable, ASTNode.EMPTY_STATEMENT);
-		listRewrite.insertAt(placeHolder, index, null);
+		String variable = DataLeak.getDeclaration(OperatorType.SOURCE, leakIds.current());
+		rewriter.insertAt(node, nodeProperty, variable, index);
 	}
 
 }
@@ -5,13 +5,15 @@ import java.util.ArrayList;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
 
-import org.eclipse.jdt.core.dom.Statement;
-import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
-import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
-
+import edu.wm.cs.muse.dataleak.DataLeak;
+import edu.wm.cs.muse.dataleak.support.InsertionPointAnalysis;
 import edu.wm.cs.muse.dataleak.support.SchemaOperatorUtility;
-import edu.wm.cs.muse.dataleak.support.Utility;
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
+import edu.wm.cs.muse.dataleak.support.LeakRewriter;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
 import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainers;
 import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainers.INSERTION_TYPE;
 
@@ -26,20 +28,23 @@ import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainer
 public class TaintOperator {
 
 	ArrayList<SourceNodeChangeContainers> nodeChanges;
-	ASTRewrite rewriter;
+	LeakRewriter rewriter;
+	LeakIdRange leakIds;
 
-	public TaintOperator(ASTRewrite rewriter, ArrayList<SourceNodeChangeContainers> nodeChanges) {
+	public TaintOperator(LeakRewriter rewriter, ArrayList<SourceNodeChangeContainers> nodeChanges,
+			LeakIdRange leakIds) {
 		this.rewriter = rewriter;
 		this.nodeChanges = nodeChanges;
+		this.leakIds = leakIds;
 	}
 
 	/**
-	 * Modifies the ASTRewrite to insert a taint declaration and a source string in
+	 * Modifies the rewriter to insert a taint declaration and a source string in
 	 * the method, then returns it.
 	 * 
 	 * @return
 	 */
-	public ASTRewrite InsertChanges() {
+	public LeakRewriter InsertChanges() {
 
 		for (SourceNodeChangeContainers nodeChange : nodeChanges) {
 			// if (nodeChange.insertionType == 0 && nodeChange.node != null ) {
@@ -58,30 +63,21 @@ public class TaintOperator {
 
 	// for inserting source inside methodBody
 	public void insertInMethodBody(Block node, int index, ChildListPropertyDescriptor nodeProperty) {
-		int placement = 0;
-		for (Object obj : node.statements()) {
-			if (obj.toString().startsWith("super") || obj.toString().startsWith("this(")) {
-				placement++;
-			}
-		}
-		int identifier = Utility.COUNTER_GLOBAL - 1;
+		int placement = InsertionPointAnalysis.of(node).countSuperOrThisCalls();
+		int identifier = leakIds.current() - 1;
 		
-		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
-		String source = String.format("dataLeAk%d = java.util.Calendar.getInstance().getTimeZone().getDisplayName();",
-				identifier);
-		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(source, ASTNode.EMPTY_STATEMENT);
-		// listRewrite.insertAt(placeHolder, index, null);
-		listRewrite.insertAt(placeHolder, placement, null);
+		String source = DataLeak.getSource(OperatorType.TAINT, identifier);
+		rewriter.insertAt(node, nodeProperty, source, placement);
+		DataLeak.report(new Leak(identifier, Leak.NONE, SchemaOperatorUtility.getClassNameOfMethod(node) + "."
+				+ ((MethodDeclaration) node.getParent()).getName()));
 	}
 
 	// for declaration.
 	private void insertVariableDeclaration(ASTNode node, int index, ChildListPropertyDescriptor nodeProperty) {
 
-		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
-		String variable = String.format("String dataLeAk%d = \"%d\";", Utility.COUNTER_GLOBAL, Utility.COUNTER_GLOBAL);
-		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(variable, ASTNode.EMPTY_STATEMENT);
-		listRewrite.insertAt(placeHolder, index, null);
-		Utility.COUNTER_GLOBAL++;
+		int identifier = leakIds.getAndIncrement();
+		String variable = DataLeak.getDeclaration(OperatorType.TAINT, identifier);
+		rewriter.insertAt(node, nodeProperty, variable, index);
 	}
 
 }
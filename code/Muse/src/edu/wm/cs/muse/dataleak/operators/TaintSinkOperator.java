@@ -1,15 +1,21 @@
 package edu.wm.cs.muse.dataleak.operators;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
-import org.eclipse.jdt.core.dom.Statement;
-import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
-import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
 
+import edu.wm.cs.muse.dataleak.DataLeak;
+import edu.wm.cs.muse.dataleak.support.InsertionPointAnalysis;
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakFieldIndex;
+import edu.wm.cs.muse.dataleak.support.LeakRewriter;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
 import edu.wm.cs.muse.dataleak.support.SchemaOperatorUtility;
 import edu.wm.cs.muse.dataleak.support.node_containers.SinkNodeChangeContainers;
 import edu.wm.cs.muse.dataleak.support.node_containers.TaintNodeChangeContainers;
@@ -25,9 +31,9 @@ public class TaintSinkOperator {
 
 	ArrayList<TaintNodeChangeContainers> fieldChanges;
 	ArrayList<SinkNodeChangeContainers> methodChanges;
-	ASTRewrite rewriter;
+	LeakRewriter rewriter;
 
-	public TaintSinkOperator(ASTRewrite rewriter, ArrayList<TaintNodeChangeContainers> fieldChanges,
+	public TaintSinkOperator(LeakRewriter rewriter, ArrayList<TaintNodeChangeContainers> fieldChanges,
 			ArrayList<SinkNodeChangeContainers> methodChanges) {
 		this.rewriter = rewriter;
 		this.fieldChanges = fieldChanges;
@@ -42,14 +48,28 @@ public class TaintSinkOperator {
 	 * 
 	 * @return
 	 */
-	public ASTRewrite InsertChanges() {
+	public LeakRewriter InsertChanges() {
+
+		// the methods of each class, in the order they were found
+		Map<ASTNode, List<SinkNodeChangeContainers>> methodsByClass =
+				new IdentityHashMap<ASTNode, List<SinkNodeChangeContainers>>();
+		for (SinkNodeChangeContainers methodChange : methodChanges) {
+			List<SinkNodeChangeContainers> methods = methodsByClass.get(methodChange.node);
+			if (methods == null) {
+				methods = new ArrayList<SinkNodeChangeContainers>();
+				methodsByClass.put(methodChange.node, methods);
+			}
+			methods.add(methodChange);
+		}
 
 		for (TaintNodeChangeContainers fieldChanges : fieldChanges) {
-			for (SinkNodeChangeContainers methodChanges : methodChanges) {
-				if (methodChanges.node == fieldChanges.node) {
-					insertSink((Block) methodChanges.method, methodChanges.index, fieldChanges.fieldBoys,
-							methodChanges.propertyDescriptor);
-				}
+			List<SinkNodeChangeContainers> methods = methodsByClass.get(fieldChanges.node);
+			if (methods == null || fieldChanges.fieldBoys.isEmpty()) {
+				continue;
+			}
+			for (SinkNodeChangeContainers methodChanges : methods) {
+				insertSink((Block) methodChanges.method, methodChanges.index, fieldChanges.fieldBoys,
+						methodChanges.propertyDescriptor);
 			}
 		}
 
@@ -57,55 +77,43 @@ public class TaintSinkOperator {
 	}
 
 	// for sink insertion
-	void insertSink(Block node, int index, ArrayList<FieldDeclaration> fieldBoys,
+	void insertSink(Block node, int index, List<FieldDeclaration> fieldBoys,
 			ChildListPropertyDescriptor nodeProperty) {
-		ListRewrite listRewrite = null;
 		if (node == null)
 			return;
 		//if it is an empty method.
 		if(node.statements().size()==0) {
 			return;
 		}
+		InsertionPointAnalysis statements = InsertionPointAnalysis.of(node);
 		for (int i = 0; i < fieldBoys.size(); i++) {
-			try {
-				listRewrite = rewriter.getListRewrite(node, nodeProperty);
-			} catch (Exception e) {
-				e.printStackTrace();
-				System.exit(0);
-			}
-			int index_equal = fieldBoys.get(i).toString().indexOf("=");
-			String tempString = fieldBoys.get(i).toString().substring(15, index_equal);
-			tempString = tempString.trim();
+			String tempString = LeakFieldIndex.getLeakName(fieldBoys.get(i));
 			MethodDeclaration methodNode = (MethodDeclaration) node.getParent();
-			System.out.println(String.format("leak-%s-%s: %s.%s", tempString, index,
-					SchemaOperatorUtility.getClassNameOfMethod(node), methodNode.getName()));
-			String sink = String.format("android.util.Log.d(\"leak-%s-%s\", dataLeAk%s);", tempString, index,
-					tempString);
-			Statement placeHolder = (Statement) rewriter.createStringPlaceholder(sink, ASTNode.EMPTY_STATEMENT);
+			DataLeak.report(new Leak(tempString, index,
+					SchemaOperatorUtility.getClassNameOfMethod(node) + "." + methodNode.getName()));
+			String sink = DataLeak.getSink(OperatorType.TAINTSINK, tempString, index);
 			
 			int placement = 1;
-			int statement_counter = 0;
 			
-			for (Object obj : node.statements()) {
+			for (int statement_counter = 0; statement_counter < statements.size(); statement_counter++) {
 				
-				if (obj.toString().startsWith("super") || obj.toString().startsWith("this(")) {
+				if (statements.isSuperOrThisCall(statement_counter)) {
 					// will only change placement if the super is at top and there is only one
 					// statement
-					System.out.println("Super found");
+					DataLeak.getOutput().println("Super found");
 
 					if (statement_counter == 0) {
 						//this should make placing the sinks after the super AND variable assignment
 						placement = 1;
 					}
 					placement++;
-				} else if (obj.toString().startsWith("return ")) {
+				} else if (statements.isValueReturn(statement_counter)) {
 					// will only change placement if the return is the first statement in node.
 					if (statement_counter == 0)
 						placement = 0;
 				}
-				statement_counter++;
 			}
-			listRewrite.insertAt(placeHolder, placement, null);
+			rewriter.insertAt(node, nodeProperty, sink, placement);
 		}
 
 	}
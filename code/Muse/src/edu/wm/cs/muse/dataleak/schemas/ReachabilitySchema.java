@@ -9,6 +9,7 @@ import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
+import edu.wm.cs.muse.dataleak.support.InsertionPointAnalysis;
 import edu.wm.cs.muse.dataleak.support.node_containers.ReachabilityNodeChangeContainers;
 
 /**
@@ -34,30 +35,23 @@ public class ReachabilitySchema extends ASTVisitor {
 		if (node.isInterface()) {
 			return false;
 		}
-		String loc = node.getName().toString() + ".<init>";
-		String logMessage = "leak-%d: <" + loc + ">";
+		String loc = "<" + node.getName().toString() + ".<init>>";
 		nodeChanges.add(
-				new ReachabilityNodeChangeContainers(node, 0, TypeDeclaration.BODY_DECLARATIONS_PROPERTY, logMessage));
+				new ReachabilityNodeChangeContainers(node, 0, TypeDeclaration.BODY_DECLARATIONS_PROPERTY, loc));
 		return true;
 	}
 
 	public boolean visit(AnonymousClassDeclaration node) {
 		// Anonymous classes
-		String loc = "1.<init>";
-		String logMessage = "leak-%d: <" + loc + ">";
+		String loc = "<1.<init>>";
 		nodeChanges.add(new ReachabilityNodeChangeContainers(node, 0,
-				AnonymousClassDeclaration.BODY_DECLARATIONS_PROPERTY, logMessage));
+				AnonymousClassDeclaration.BODY_DECLARATIONS_PROPERTY, loc));
 		return true;
 	}
 
 	public boolean visit(Block node) {
 		// Blocks
-		int index = 0;
-		for (Object obj : node.statements()) {
-			if (obj.toString().startsWith("super") || obj.toString().startsWith("this(")) {
-				index = 1;
-			}
-		}
+		int index = InsertionPointAnalysis.of(node).countSuperOrThisCalls() > 0 ? 1 : 0;
 		String className = "";
 		String methodName = "<init>";
 		ASTNode trace = node.getParent();
@@ -74,8 +68,7 @@ public class ReachabilitySchema extends ASTVisitor {
 			trace = trace.getParent();
 		}
 		String loc = className + "." + methodName;
-		String logMessage = "leak-%d: "+ loc ;
-		nodeChanges.add(new ReachabilityNodeChangeContainers(node, index, Block.STATEMENTS_PROPERTY, logMessage));
+		nodeChanges.add(new ReachabilityNodeChangeContainers(node, index, Block.STATEMENTS_PROPERTY, loc));
 		return true;
 	}
 }
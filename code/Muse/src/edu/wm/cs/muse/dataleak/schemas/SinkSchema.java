@@ -1,20 +1,19 @@
 package edu.wm.cs.muse.dataleak.schemas;
 
 import java.util.ArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
 import org.eclipse.jdt.core.dom.Block;
-import org.eclipse.jdt.core.dom.BodyDeclaration;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
-import edu.wm.cs.muse.dataleak.support.Utility;
+import edu.wm.cs.muse.dataleak.support.InsertionPointAnalysis;
+import edu.wm.cs.muse.dataleak.support.LeakFieldIndex;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
 import edu.wm.cs.muse.dataleak.support.node_containers.SinkNodeChangeContainers;
 
 /**
@@ -27,25 +26,28 @@ import edu.wm.cs.muse.dataleak.support.node_containers.SinkNodeChangeContainers;
 public class SinkSchema extends ASTVisitor {
 
 	private ArrayList<SinkNodeChangeContainers> nodeChanges;
+	private LeakIdRange leakIds;
 
-	public SinkSchema() {
+	/**
+	 * @param leakIds identifiers of the compilation unit, used for the sources
+	 *                added to anonymous classes
+	 */
+	public SinkSchema(LeakIdRange leakIds) {
 		nodeChanges = new ArrayList<SinkNodeChangeContainers>();
+		this.leakIds = leakIds;
 	}
 
 	public ArrayList<SinkNodeChangeContainers> getNodeChanges() {
 		return this.nodeChanges;
 	};
 
-	Pattern variablePattern = Pattern.compile("(.*String dataLeAk)(\\d+).*"); // the pattern to search for
-
 	/*
 	 * Includes an additional integer param to differentiate between insertSource
 	 * and insertSink
 	 */
 	public boolean visit(MethodDeclaration method) {
 		// Methods
-		int count = 0;
-		int index = 0;
+		int leakId;
 		Block node = method.getBody();
 		if (node == null) {
 			return true;
@@ -54,12 +56,8 @@ public class SinkSchema extends ASTVisitor {
 			// abort abort. enum method.
 			return true;
 		}
-		for (Object obj : node.statements()) {
-			if (obj.toString().startsWith("super") || obj.toString().startsWith("this(")
-					|| obj.toString().startsWith("dataLeAk")) {
-				index++;
-			}
-		}
+		int index = InsertionPointAnalysis.of(node).countSuperOrThisCallsAndLeaks();
+		LeakFieldIndex leakFields = LeakFieldIndex.of(method);
 
 		ASTNode n = node.getParent();
 		boolean inAnonymousClass = false;
@@ -80,15 +78,9 @@ public class SinkSchema extends ASTVisitor {
 				break;
 
 			case ASTNode.TYPE_DECLARATION:
-				for (Object field : ((TypeDeclaration) n).bodyDeclarations()) {
-					if (((BodyDeclaration) field).getNodeType() == ASTNode.FIELD_DECLARATION) {
-						Matcher matcher = variablePattern.matcher(field.toString());
-						if (matcher.find() && field.toString().trim().startsWith("String dataLeAk")) {
-							count = Integer.valueOf(matcher.group(2));
-							nodeChanges.add(new SinkNodeChangeContainers(node, index, count, Block.STATEMENTS_PROPERTY,
-									method, 0));
-						}
-					}
+				for (int count : leakFields.getLeakIds(n)) {
+					nodeChanges.add(new SinkNodeChangeContainers(node, index, count, Block.STATEMENTS_PROPERTY, method,
+							0));
 				}
 				try {
 					inStaticContext = Modifier.isStatic(((TypeDeclaration) n).getModifiers());
@@ -96,15 +88,9 @@ public class SinkSchema extends ASTVisitor {
 				}
 				break;
 			case ASTNode.ANONYMOUS_CLASS_DECLARATION:
-				for (Object field : ((AnonymousClassDeclaration) n).bodyDeclarations()) {
-					if (((BodyDeclaration) field).getNodeType() == ASTNode.FIELD_DECLARATION) {
-						Matcher matcher = variablePattern.matcher(field.toString());
-						if (matcher.find() && field.toString().trim().startsWith("String dataLeAk")) {
-							count = Integer.valueOf(matcher.group(2));
-							nodeChanges.add(new SinkNodeChangeContainers(node, index, count, Block.STATEMENTS_PROPERTY,
-									method, 0));
-						}
-					}
+				for (int count : leakFields.getLeakIds(n)) {
+					nodeChanges.add(new SinkNodeChangeContainers(node, index, count, Block.STATEMENTS_PROPERTY, method,
+							0));
 				}
 				inAnonymousClass = true;
 				break;
@@ -131,10 +117,10 @@ public class SinkSchema extends ASTVisitor {
 				break;
 
 			case ASTNode.TYPE_DECLARATION:
-				Utility.COUNTER_GLOBAL++;
-				nodeChanges.add(new SinkNodeChangeContainers(n, 0, Utility.COUNTER_GLOBAL,
+				leakId = leakIds.incrementAndGet();
+				nodeChanges.add(new SinkNodeChangeContainers(n, 0, leakId,
 						TypeDeclaration.BODY_DECLARATIONS_PROPERTY, method, 1));
-				nodeChanges.add(new SinkNodeChangeContainers(node, index, Utility.COUNTER_GLOBAL,
+				nodeChanges.add(new SinkNodeChangeContainers(node, index, leakId,
 						Block.STATEMENTS_PROPERTY, method, 0));
 				try {
 					inStaticContext = Modifier.isStatic(((TypeDeclaration) n).getModifiers());
@@ -142,10 +128,10 @@ public class SinkSchema extends ASTVisitor {
 				}
 				break;
 			case ASTNode.ANONYMOUS_CLASS_DECLARATION:
-				Utility.COUNTER_GLOBAL++;
-				nodeChanges.add(new SinkNodeChangeContainers(n, 0, Utility.COUNTER_GLOBAL,
+				leakId = leakIds.incrementAndGet();
+				nodeChanges.add(new SinkNodeChangeContainers(n, 0, leakId,
 						AnonymousClassDeclaration.BODY_DECLARATIONS_PROPERTY, method, 1));
-				nodeChanges.add(new SinkNodeChangeContainers(node, index, Utility.COUNTER_GLOBAL,
+				nodeChanges.add(new SinkNodeChangeContainers(node, index, leakId,
 						Block.STATEMENTS_PROPERTY, method, 0));
 				break;
 			}
@@ -10,6 +10,7 @@ import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
+import edu.wm.cs.muse.dataleak.support.InsertionPointAnalysis;
 import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainers;
 import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainers.INSERTION_TYPE;
 
@@ -47,12 +48,7 @@ public class SourceSchema extends ASTVisitor {
 		if (methodBody == null) {
 			return true;
 		}
-		int index = 0;
-		for (Object obj : methodBody.statements()) {
-			if (obj.toString().startsWith("super") || obj.toString().startsWith("this(")) {
-				index++;
-			}
-		}
+		int index = InsertionPointAnalysis.of(methodBody).countSuperOrThisCalls();
 		ASTNode n = methodBody.getParent();
 		boolean inAnonymousClass = false;
 		boolean inStaticContext = false;
@@ -11,6 +11,7 @@ import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
+import edu.wm.cs.muse.dataleak.DataLeak;
 import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainers;
 import edu.wm.cs.muse.dataleak.support.node_containers.SourceNodeChangeContainers.INSERTION_TYPE;;
 
@@ -53,12 +54,12 @@ public class TaintSchema extends ASTVisitor {
 			return true;
 		}
 		if (Modifier.isPrivate(node.getModifiers())) {
-			System.out.println("Private method: " + node.getName());
+			DataLeak.getOutput().println("Private method: " + node.getName());
 			return true;
 		}
 		Stack<ASTNode> ancestorStack = new Stack<ASTNode>();
 
-		System.out.println(node.getName());
+		DataLeak.getOutput().println(node.getName());
 		parent = node.getParent();
 
 		while (true) {
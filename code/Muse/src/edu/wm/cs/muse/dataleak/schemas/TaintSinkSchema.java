@@ -1,6 +1,8 @@
 package edu.wm.cs.muse.dataleak.schemas;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
@@ -9,7 +11,8 @@ import org.eclipse.jdt.core.dom.FieldDeclaration;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
 
-import edu.wm.cs.muse.dataleak.support.Utility;
+import edu.wm.cs.muse.dataleak.support.LeakFieldIndex;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
 import edu.wm.cs.muse.dataleak.support.node_containers.SinkNodeChangeContainers;
 import edu.wm.cs.muse.dataleak.support.node_containers.TaintNodeChangeContainers;;
 
@@ -31,10 +34,16 @@ public class TaintSinkSchema extends ASTVisitor {
 	int methodIndex = 0;
 	ArrayList<FieldDeclaration> fieldHolder = new ArrayList<FieldDeclaration>();
 	ArrayList<FieldDeclaration> previousFieldHolder = new ArrayList<FieldDeclaration>();
+	private List<FieldDeclaration> fieldSnapshot;
+	private LeakIdRange leakIds;
 
-	public TaintSinkSchema() {
+	/**
+	 * @param leakIds identifiers of the compilation unit, used to number the sinks
+	 */
+	public TaintSinkSchema(LeakIdRange leakIds) {
 		taintNodeChanges = new ArrayList<TaintNodeChangeContainers>();
 		nodeChanges = new ArrayList<SinkNodeChangeContainers>();
+		this.leakIds = leakIds;
 	}
 
 	public ArrayList<TaintNodeChangeContainers> getFieldNodeChanges() {
@@ -60,7 +69,7 @@ public class TaintSinkSchema extends ASTVisitor {
 
 		if (parent.getNodeType() == ASTNode.TYPE_DECLARATION) {
 
-			nodeChanges.add(new SinkNodeChangeContainers(parent, Utility.COUNTER_GLOBAL_TSINK++, throwaway,
+			nodeChanges.add(new SinkNodeChangeContainers(parent, leakIds.nextSinkId(), throwaway,
 					Block.STATEMENTS_PROPERTY, method.getBody(), 0));
 			// get parent's fields with findField
 			parent = parent.getParent();
@@ -84,17 +93,19 @@ public class TaintSinkSchema extends ASTVisitor {
 		if (parent == classRetainer) {
 			// check for strings of the declaration "String dataLeAk%d"
 
-			if (field.toString().contains("dataLeAk")
-					&& field.toString().substring(0, 15).compareTo("String dataLeAk") == 0) {
+			if (LeakFieldIndex.isLeakField(field)) {
 				fieldHolder.add(field);
 				previousFieldHolder.add(field);
+				fieldSnapshot = null;
 			}
 
-			ArrayList<FieldDeclaration> fieldDecl = new ArrayList<FieldDeclaration>(fieldHolder);
-
-			taintNodeChanges.add(new TaintNodeChangeContainers(parent, fieldDecl, index, Block.STATEMENTS_PROPERTY, 0));
+			taintNodeChanges
+					.add(new TaintNodeChangeContainers(parent, getFieldSnapshot(), index, Block.STATEMENTS_PROPERTY, 0));
 			// keep track of outer classes
-			fieldHolder.clear();
+			if (!fieldHolder.isEmpty()) {
+				fieldHolder.clear();
+				fieldSnapshot = null;
+			}
 			classRetainer = parent;
 		}
 
@@ -109,8 +120,7 @@ public class TaintSinkSchema extends ASTVisitor {
 
 			if (classRetainer != null) {
 
-				if (field.toString().contains("dataLeAk")
-						&& field.toString().substring(0, 15).compareTo("String dataLeAk") == 0) {
+				if (LeakFieldIndex.isLeakField(field)) {
 					previousFieldHolder.add(field);
 				}
 				classRetainer = parent;
@@ -118,21 +128,19 @@ public class TaintSinkSchema extends ASTVisitor {
 
 			if (classRetainer == null) {
 
-				if (field.toString().contains("dataLeAk")
-						&& field.toString().substring(0, 15).compareTo("String dataLeAk") == 0) {
+				if (LeakFieldIndex.isLeakField(field)) {
 					previousFieldHolder.add(field);
 				}
 				classRetainer = parent;
 			}
 
-			ArrayList<FieldDeclaration> fieldDecl = new ArrayList<FieldDeclaration>(fieldHolder);
-
-			taintNodeChanges
-					.add(new TaintNodeChangeContainers(classRetainer, fieldDecl, index, Block.STATEMENTS_PROPERTY, 0));
+			taintNodeChanges.add(new TaintNodeChangeContainers(classRetainer, getFieldSnapshot(), index,
+					Block.STATEMENTS_PROPERTY, 0));
 			classRetainer = parent;
 
-			for (int fieldCount = 0; fieldCount < previousFieldHolder.size(); fieldCount++) {
-				fieldHolder.add(previousFieldHolder.get(fieldCount));
+			if (!previousFieldHolder.isEmpty()) {
+				fieldHolder.addAll(previousFieldHolder);
+				fieldSnapshot = null;
 			}
 		}
 
@@ -140,4 +148,16 @@ public class TaintSinkSchema extends ASTVisitor {
 
 		return true;
 	}
+
+	/**
+	 * The containers share one unmodifiable copy of the fields held, made again
+	 * only after the held fields change, instead of a copy for every field
+	 * declaration visited.
+	 */
+	private List<FieldDeclaration> getFieldSnapshot() {
+		if (fieldSnapshot == null) {
+			fieldSnapshot = Collections.unmodifiableList(new ArrayList<FieldDeclaration>(fieldHolder));
+		}
+		return fieldSnapshot;
+	}
 }
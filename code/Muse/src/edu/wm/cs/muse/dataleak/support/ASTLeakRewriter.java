@@ -0,0 +1,53 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Records the insertions as string placeholders of an {@link ASTRewrite}, which
+ * converts them into text edits of the whole compilation unit when applied.
+ */
+public class ASTLeakRewriter implements LeakRewriter {
+
+	private final ASTRewrite rewriter;
+
+	public ASTLeakRewriter(CompilationUnit root) {
+		this(ASTRewrite.create(root.getAST()));
+	}
+
+	public ASTLeakRewriter(ASTRewrite rewriter) {
+		this.rewriter = rewriter;
+	}
+
+	@Override
+	public void insertAt(ASTNode node, ChildListPropertyDescriptor property, String code, int index) {
+		ASTNode placeholder = rewriter.createStringPlaceholder(code, ASTNode.EMPTY_STATEMENT);
+		rewriter.getListRewrite(node, property).insertAt(placeholder, index, null);
+	}
+
+	@Override
+	public String apply(String source) throws BadLocationException {
+		IDocument document = new Document(source);
+		TextEdit edits = rewriter.rewriteAST(document, null);
+		edits.apply(document);
+		return document.get();
+	}
+
+	@Override
+	public LeakRewriter create(CompilationUnit root) {
+		return new ASTLeakRewriter(root);
+	}
+
+	/**
+	 * @return the rewriter the insertions are recorded in
+	 */
+	public ASTRewrite getASTRewrite() {
+		return rewriter;
+	}
+}
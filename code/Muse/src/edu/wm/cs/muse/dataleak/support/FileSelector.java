@@ -0,0 +1,132 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Selects the source files of an app that are mutated. A file is selected if it
+ * matches an include pattern, matches no exclude pattern and its path in the
+ * mutated copy of the app contains the package of the app. Folders matching an
+ * exclude pattern are not visited at all.
+ *
+ * Patterns are globs, as in {@link FileSystem#getPathMatcher(String)}. A pattern
+ * containing a '/' is matched against the path relative to the root of the app,
+ * any other pattern against the name of the file or folder. An exclude pattern
+ * ending with <code>/**</code> also matches the folder itself, which is then
+ * not visited.
+ */
+public class FileSelector {
+
+	public static final List<String> DEFAULT_INCLUDES = Collections.unmodifiableList(Arrays.asList("*.java"));
+
+	public static final List<String> DEFAULT_EXCLUDES = Collections.unmodifiableList(Arrays.asList(".git", ".gradle",
+			".idea", "build/**", "*/build/**", "*EmmaInstrumentation.java", "*FinishListener.java", "*InstrumentedActivity.java",
+			"*InstrumentedTest.java", "*UnitTest.java", "*SMSInstrumentedReceiver.java"));
+
+	private final List<PathMatcher> nameIncludes = new ArrayList<PathMatcher>();
+	private final List<PathMatcher> pathIncludes = new ArrayList<PathMatcher>();
+	private final List<PathMatcher> nameExcludes = new ArrayList<PathMatcher>();
+	private final List<PathMatcher> pathExcludes = new ArrayList<PathMatcher>();
+	private final List<PathMatcher> folderExcludes = new ArrayList<PathMatcher>();
+	private final String appPath;
+
+	/**
+	 * @param includes patterns of the files to select
+	 * @param excludes patterns of the files and folders to leave out
+	 * @param appName  package of the app, which the path of the selected files
+	 *                 must contain
+	 */
+	public FileSelector(List<String> includes, List<String> excludes, String appName) {
+		FileSystem fileSystem = FileSystems.getDefault();
+		for (String include : includes) {
+			(include.contains("/") ? pathIncludes : nameIncludes).add(fileSystem.getPathMatcher("glob:" + include));
+		}
+		for (String exclude : excludes) {
+			(exclude.contains("/") ? pathExcludes : nameExcludes).add(fileSystem.getPathMatcher("glob:" + exclude));
+			if (exclude.endsWith("/**")) {
+				folderExcludes.add(fileSystem.getPathMatcher("glob:" + exclude.substring(0, exclude.length() - 3)));
+			}
+		}
+		this.appPath = appName.replace(".", "/");
+	}
+
+	/**
+	 * Lists the selected files under the root, sorted by path so that every run
+	 * visits the compilation units in the same order.
+	 *
+	 * @param root       folder of the source code of the app
+	 * @param outputRoot folder of the mutated copy of the app, against which the
+	 *                   package of the app is matched
+	 * @return paths of the files relative to the root, separated by '/'
+	 * @throws IOException if a folder cannot be listed
+	 */
+	public List<String> select(final File root, File outputRoot) throws IOException {
+		final Path rootPath = root.toPath();
+		final String outputPath = outputRoot.getCanonicalPath() + File.separator;
+		final List<String> selected = new ArrayList<String>();
+		Files.walkFileTree(rootPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+				new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				if (!dir.equals(rootPath) && (matches(rootPath.relativize(dir), nameExcludes, pathExcludes)
+						|| matches(rootPath.relativize(dir), Collections.<PathMatcher>emptyList(), folderExcludes))) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+				if (e instanceof FileSystemLoopException) {
+					// a link to a folder that is already being visited
+					return FileVisitResult.CONTINUE;
+				}
+				throw e;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				Path path = rootPath.relativize(file);
+				if (attrs.isRegularFile() && matches(path, nameIncludes, pathIncludes)
+						&& !matches(path, nameExcludes, pathExcludes)) {
+					String relativePath = path.toString().replace(File.separatorChar, '/');
+					if ((outputPath + relativePath).contains(appPath)) {
+						selected.add(relativePath);
+					}
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(selected);
+		return selected;
+	}
+
+	private static boolean matches(Path path, List<PathMatcher> nameMatchers, List<PathMatcher> pathMatchers) {
+		for (PathMatcher matcher : nameMatchers) {
+			if (matcher.matches(path.getFileName())) {
+				return true;
+			}
+		}
+		for (PathMatcher matcher : pathMatchers) {
+			if (matcher.matches(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
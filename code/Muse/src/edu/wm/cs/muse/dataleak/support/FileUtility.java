@@ -5,8 +5,20 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
 
 /**
  *  File utility contains different utility methods used to read and manipulate files and directories
@@ -23,35 +35,134 @@ public class FileUtility {
 	 * @throws IOException
 	 */
 	public static StringBuffer readSourceFile(String filePath) throws FileNotFoundException, IOException {
+		return readSource(new FileReader(filePath));
+	}
+
+	/**
+	 * reads a text and returns its contents with each line ended by a new line,
+	 * whatever the line terminators of the text
+	 * 
+	 * @param reader of the text, closed once it is read
+	 * @return StringBuffer that contains the text contents
+	 * @throws IOException
+	 */
+	public static StringBuffer readSource(Reader reader) throws IOException {
 		StringBuffer source = new StringBuffer();
-		BufferedReader reader = new BufferedReader(new FileReader(filePath));
+		BufferedReader lines = new BufferedReader(reader);
 		String line = null;
 
-		while ((line = reader.readLine()) != null) {
+		while ((line = lines.readLine()) != null) {
 			source.append(line).append("\n");
 		}
-		reader.close();
+		lines.close();
 		return source;
 	}
 	/**
+	 * sets up the directory where the mutated source codes will be kept, as a
+	 * fresh copy of the app
 	 * 
-	 * sets up the directory where the mutated source codes will be kept
+	 * @param sourceRoot folder of the original source code of the app
+	 * @param outputRoot folder where the mutated copy is kept
+	 * @param link       true to hard link the files of the copy to the original
+	 *                   ones instead of copying them, where the file system allows
+	 *                   it
 	 */
-	public static void setupMutantsDirectory() {
+	public static void setupMutantsDirectory(File sourceRoot, File outputRoot, boolean link) {
 
 		try {
-			String newRoot = Arguments.getMutantsFolder() + File.separator + Arguments.getAppName();
-			if (new File(newRoot).exists()) {
-				FileUtils.deleteDirectory(new File(newRoot));
+			if (outputRoot.exists()) {
+				FileUtils.deleteDirectory(outputRoot);
+			}
+			if (link) {
+				linkDirectory(sourceRoot.toPath(), outputRoot.toPath());
+			} else {
+				FileUtils.copyDirectory(sourceRoot, outputRoot);
 			}
-			FileUtils.copyDirectory(new File(Arguments.getRootPath()), new File(newRoot));
-			//why was this done? no idea.
-			Arguments.setRootPath(newRoot);
 		} catch (IOException e) {
 			return;
 		}
 
 	}
+
+	private static void linkDirectory(final Path sourceRoot, final Path outputRoot) throws IOException {
+		Files.walkFileTree(sourceRoot, new SimpleFileVisitor<Path>() {
+			private boolean link = true;
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Files.createDirectories(outputRoot.resolve(sourceRoot.relativize(dir).toString()));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				link = linkOrCopy(file, outputRoot.resolve(sourceRoot.relativize(file).toString()), link);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Replaces the target with a hard link to the source or, if links are not
+	 * wanted or not supported, with a copy of it.
+	 * 
+	 * @param link true to try linking first
+	 * @return true if the target was linked, false if it was copied. Once linking
+	 *         fails, the remaining files of the same folders are copied directly.
+	 */
+	public static boolean linkOrCopy(Path source, Path target, boolean link) throws IOException {
+		Files.deleteIfExists(target);
+		Files.createDirectories(target.getParent());
+		if (link) {
+			try {
+				Files.createLink(target, source);
+				return true;
+			} catch (UnsupportedOperationException e) {
+				// the file system has no hard links
+			} catch (FileSystemException e) {
+				// e.g. the folders are on different devices
+			}
+		}
+		Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+		return false;
+	}
+	
+	/**
+	 * Brings an existing copy of the app up to date with its source code, without
+	 * touching the given files, which hold the mutants. Files that are missing or
+	 * differ in size or modification time are copied, and files that are no longer
+	 * part of the app are deleted.
+	 * 
+	 * @param sourceRoot folder of the original source code of the app
+	 * @param outputRoot folder where the mutated copy is kept
+	 * @param mutated    paths, relative to the folders, of the mutated files
+	 * @param link       true to hard link the copied files to the original ones,
+	 *                   where the file system allows it
+	 * @throws IOException if a file cannot be copied or deleted
+	 */
+	public static void updateMutantsDirectory(File sourceRoot, File outputRoot, Set<String> mutated, boolean link)
+			throws IOException {
+		URI sourceUri = sourceRoot.toURI();
+		Set<String> sourcePaths = new HashSet<String>();
+		for (File source : FileUtils.listFiles(sourceRoot, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE)) {
+			String path = sourceUri.relativize(source.toURI()).getPath();
+			sourcePaths.add(path);
+			File copy = new File(outputRoot, path);
+			if (!mutated.contains(path) && (!copy.exists() || copy.length() != source.length()
+					|| copy.lastModified() != source.lastModified())) {
+				link = linkOrCopy(source.toPath(), copy.toPath(), link);
+			}
+		}
+		if (!outputRoot.exists()) {
+			return;
+		}
+		URI outputUri = outputRoot.toURI();
+		for (File copy : FileUtils.listFiles(outputRoot, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE)) {
+			if (!sourcePaths.contains(outputUri.relativize(copy.toURI()).getPath())) {
+				FileUtils.forceDelete(copy);
+			}
+		}
+	}
 	
 	public static boolean testFileEquality(File expected, File actual) {
 		try {	
@@ -0,0 +1,267 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.util.List;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ArrayAccess;
+import org.eclipse.jdt.core.dom.ArrayType;
+import org.eclipse.jdt.core.dom.Assignment;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.ConditionalExpression;
+import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.ExpressionStatement;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.InfixExpression;
+import org.eclipse.jdt.core.dom.InstanceofExpression;
+import org.eclipse.jdt.core.dom.LabeledStatement;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.NameQualifiedType;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.PostfixExpression;
+import org.eclipse.jdt.core.dom.PrimitiveType;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.QualifiedType;
+import org.eclipse.jdt.core.dom.ReturnStatement;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
+import org.eclipse.jdt.core.dom.SuperFieldAccess;
+import org.eclipse.jdt.core.dom.SuperMethodInvocation;
+import org.eclipse.jdt.core.dom.ThisExpression;
+import org.eclipse.jdt.core.dom.TypeLiteral;
+import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+
+/**
+ * Classifies the statements of a block that decide where leaks are inserted:
+ * calls that have to stay at the top of the block, i.e. statements led by
+ * <code>super</code> and <code>this(...)</code> calls, statements led by an
+ * injected <code>dataLeAk</code> variable, and returns of a value.
+ *
+ * Statements are classified by their node type and the leftmost name they
+ * start with, and the answers are the same as matching the beginning of the
+ * statement's source text, which needed the whole statement to be printed. The
+ * analysis of a block is computed once and kept as a property of the block, so
+ * every schema and operator visiting the same tree shares it. It assumes the
+ * tree is not modified afterwards, which holds since the changes are recorded
+ * with an ASTRewrite.
+ */
+public final class InsertionPointAnalysis {
+
+	private static final String PROPERTY = InsertionPointAnalysis.class.getName();
+
+	private static final int SUPER_OR_THIS_CALL = 1;
+	private static final int LEAK = 2;
+	private static final int VALUE_RETURN = 4;
+
+	private final int[] kinds;
+	private final int superOrThisCalls;
+	private final int leaks;
+
+	private InsertionPointAnalysis(Block block) {
+		List<?> statements = block.statements();
+		kinds = new int[statements.size()];
+		int superOrThisCalls = 0;
+		int leaks = 0;
+		for (int i = 0; i < kinds.length; i++) {
+			ASTNode statement = (ASTNode) statements.get(i);
+			String leadingName = getLeadingName(statement);
+			if (statement.getNodeType() == ASTNode.CONSTRUCTOR_INVOCATION
+					&& ((ConstructorInvocation) statement).typeArguments().isEmpty()
+					|| leadingName != null && leadingName.startsWith("super")) {
+				kinds[i] |= SUPER_OR_THIS_CALL;
+				superOrThisCalls++;
+			} else if (leadingName != null && leadingName.startsWith("dataLeAk")) {
+				kinds[i] |= LEAK;
+				leaks++;
+			}
+			if (statement.getNodeType() == ASTNode.RETURN_STATEMENT
+					&& ((ReturnStatement) statement).getExpression() != null) {
+				kinds[i] |= VALUE_RETURN;
+			}
+		}
+		this.superOrThisCalls = superOrThisCalls;
+		this.leaks = leaks;
+	}
+
+	/**
+	 * @return the analysis of the block, computed on first use
+	 */
+	public static InsertionPointAnalysis of(Block block) {
+		Object analysis = block.getProperty(PROPERTY);
+		if (analysis == null) {
+			analysis = new InsertionPointAnalysis(block);
+			block.setProperty(PROPERTY, analysis);
+		}
+		return (InsertionPointAnalysis) analysis;
+	}
+
+	/**
+	 * @return true if the i-th statement starts with <code>super</code>, e.g. a
+	 *         super constructor or method call, or is a <code>this(...)</code>
+	 *         constructor call
+	 */
+	public boolean isSuperOrThisCall(int i) {
+		return (kinds[i] & SUPER_OR_THIS_CALL) != 0;
+	}
+
+	/**
+	 * @return true if the i-th statement starts with an injected
+	 *         <code>dataLeAk</code> variable
+	 */
+	public boolean isLeak(int i) {
+		return (kinds[i] & LEAK) != 0;
+	}
+
+	/**
+	 * @return true if the i-th statement returns a value
+	 */
+	public boolean isValueReturn(int i) {
+		return (kinds[i] & VALUE_RETURN) != 0;
+	}
+
+	/**
+	 * @return number of statements for which {@link #isSuperOrThisCall(int)}
+	 *         holds
+	 */
+	public int countSuperOrThisCalls() {
+		return superOrThisCalls;
+	}
+
+	/**
+	 * @return number of statements for which {@link #isSuperOrThisCall(int)} or
+	 *         {@link #isLeak(int)} holds
+	 */
+	public int countSuperOrThisCallsAndLeaks() {
+		return superOrThisCalls + leaks;
+	}
+
+	/**
+	 * @return number of statements of the block
+	 */
+	public int size() {
+		return kinds.length;
+	}
+
+	/**
+	 * Finds the name or keyword the source text of the node starts with, by
+	 * following the leftmost child of the node.
+	 *
+	 * @return the name, or null if the text starts with a symbol or a literal
+	 */
+	static String getLeadingName(ASTNode node) {
+		while (node != null) {
+			switch (node.getNodeType()) {
+			case ASTNode.EXPRESSION_STATEMENT:
+				node = ((ExpressionStatement) node).getExpression();
+				break;
+			case ASTNode.LABELED_STATEMENT:
+				return ((LabeledStatement) node).getLabel().getIdentifier();
+			case ASTNode.VARIABLE_DECLARATION_STATEMENT:
+				VariableDeclarationStatement declaration = (VariableDeclarationStatement) node;
+				node = declaration.modifiers().isEmpty() ? declaration.getType()
+						: (ASTNode) declaration.modifiers().get(0);
+				break;
+			case ASTNode.MODIFIER:
+				return ((Modifier) node).getKeyword().toString();
+			case ASTNode.SUPER_CONSTRUCTOR_INVOCATION:
+				SuperConstructorInvocation superConstructorInvocation = (SuperConstructorInvocation) node;
+				if (superConstructorInvocation.getExpression() == null) {
+					return superConstructorInvocation.typeArguments().isEmpty() ? "super" : null;
+				}
+				node = superConstructorInvocation.getExpression();
+				break;
+			case ASTNode.CONSTRUCTOR_INVOCATION:
+				return ((ConstructorInvocation) node).typeArguments().isEmpty() ? "this" : null;
+			case ASTNode.METHOD_INVOCATION:
+				MethodInvocation methodInvocation = (MethodInvocation) node;
+				if (methodInvocation.getExpression() == null) {
+					return methodInvocation.typeArguments().isEmpty() ? methodInvocation.getName().getIdentifier()
+							: null;
+				}
+				node = methodInvocation.getExpression();
+				break;
+			case ASTNode.SUPER_METHOD_INVOCATION:
+				if (((SuperMethodInvocation) node).getQualifier() == null) {
+					return "super";
+				}
+				node = ((SuperMethodInvocation) node).getQualifier();
+				break;
+			case ASTNode.SUPER_FIELD_ACCESS:
+				if (((SuperFieldAccess) node).getQualifier() == null) {
+					return "super";
+				}
+				node = ((SuperFieldAccess) node).getQualifier();
+				break;
+			case ASTNode.THIS_EXPRESSION:
+				if (((ThisExpression) node).getQualifier() == null) {
+					return "this";
+				}
+				node = ((ThisExpression) node).getQualifier();
+				break;
+			case ASTNode.CLASS_INSTANCE_CREATION:
+				if (((ClassInstanceCreation) node).getExpression() == null) {
+					return "new";
+				}
+				node = ((ClassInstanceCreation) node).getExpression();
+				break;
+			case ASTNode.FIELD_ACCESS:
+				node = ((FieldAccess) node).getExpression();
+				break;
+			case ASTNode.QUALIFIED_NAME:
+				node = ((QualifiedName) node).getQualifier();
+				break;
+			case ASTNode.SIMPLE_NAME:
+				return ((SimpleName) node).getIdentifier();
+			case ASTNode.ASSIGNMENT:
+				node = ((Assignment) node).getLeftHandSide();
+				break;
+			case ASTNode.POSTFIX_EXPRESSION:
+				node = ((PostfixExpression) node).getOperand();
+				break;
+			case ASTNode.ARRAY_ACCESS:
+				node = ((ArrayAccess) node).getArray();
+				break;
+			case ASTNode.INFIX_EXPRESSION:
+				node = ((InfixExpression) node).getLeftOperand();
+				break;
+			case ASTNode.INSTANCEOF_EXPRESSION:
+				node = ((InstanceofExpression) node).getLeftOperand();
+				break;
+			case ASTNode.CONDITIONAL_EXPRESSION:
+				node = ((ConditionalExpression) node).getExpression();
+				break;
+			case ASTNode.TYPE_LITERAL:
+				node = ((TypeLiteral) node).getType();
+				break;
+			case ASTNode.SIMPLE_TYPE:
+				if (!((SimpleType) node).annotations().isEmpty()) {
+					return null;
+				}
+				node = ((SimpleType) node).getName();
+				break;
+			case ASTNode.QUALIFIED_TYPE:
+				node = ((QualifiedType) node).getQualifier();
+				break;
+			case ASTNode.NAME_QUALIFIED_TYPE:
+				node = ((NameQualifiedType) node).getQualifier();
+				break;
+			case ASTNode.PARAMETERIZED_TYPE:
+				node = ((ParameterizedType) node).getType();
+				break;
+			case ASTNode.ARRAY_TYPE:
+				node = ((ArrayType) node).getElementType();
+				break;
+			case ASTNode.PRIMITIVE_TYPE:
+				if (!((PrimitiveType) node).annotations().isEmpty()) {
+					return null;
+				}
+				return ((PrimitiveType) node).getPrimitiveTypeCode().toString();
+			default:
+				return null;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,102 @@
+package edu.wm.cs.muse.dataleak.support;
+
+/**
+ * A leak inserted by an operator, as reported on its line of the output, e.g.
+ * <code>leak-12-3: MainActivity.onCreate</code> for the third sink of leak 12,
+ * or <code>leak-12: &lt;MainActivity.&lt;init&gt;&gt;</code> for a leak
+ * without separate sinks. The operators record each leak they insert, see
+ * {@link LeakCollector}.
+ */
+public class Leak {
+
+	private static final String PREFIX = "leak-";
+	private static final String SEPARATOR = ": ";
+
+	/**
+	 * sink identifier of the leaks that have none, and source identifier of the
+	 * leaks whose name is not a number
+	 */
+	public static final int NONE = -1;
+
+	private final String name;
+	private final int sink;
+	private final String location;
+
+	/**
+	 * @param source   identifier of the leak
+	 * @param sink     identifier of the sink, or {@link #NONE}
+	 * @param location the class and method, or constructor, the leak is in
+	 */
+	public Leak(int source, int sink, String location) {
+		this(String.valueOf(source), sink, location);
+	}
+
+	/**
+	 * @param name     the part of the name of the leak variable after its prefix,
+	 *                 usually its identifier. TAINTSINK reports the sinks of any
+	 *                 leak field, whatever follows the prefix.
+	 * @param sink     identifier of the sink, or {@link #NONE}
+	 * @param location the class and method, or constructor, the leak is in
+	 */
+	public Leak(String name, int sink, String location) {
+		this.name = name;
+		this.sink = sink;
+		this.location = location;
+	}
+
+	/**
+	 * @return the identifier of the leak, which names its variables, or
+	 *         {@link #NONE} if the name is not a number
+	 */
+	public int getSource() {
+		try {
+			return Integer.parseInt(name);
+		} catch (NumberFormatException e) {
+			return NONE;
+		}
+	}
+
+	/**
+	 * @return the part of the name of the leak variables after their prefix
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the identifier of the sink, or {@link #NONE}
+	 */
+	public int getSink() {
+		return sink;
+	}
+
+	public boolean hasSink() {
+		return sink != NONE;
+	}
+
+	/**
+	 * @return where the leak is, as reported by the operator
+	 */
+	public String getLocation() {
+		return location;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Leak)) {
+			return false;
+		}
+		Leak leak = (Leak) other;
+		return name.equals(leak.name) && sink == leak.sink && location.equals(leak.location);
+	}
+
+	@Override
+	public int hashCode() {
+		return (name.hashCode() * 31 + sink) * 31 + location.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return PREFIX + name + (hasSink() ? "-" + sink : "") + SEPARATOR + location;
+	}
+}
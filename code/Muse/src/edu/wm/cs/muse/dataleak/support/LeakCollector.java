@@ -0,0 +1,18 @@
+package edu.wm.cs.muse.dataleak.support;
+
+/**
+ * Receives the leaks the operators insert in the compilation units of a run,
+ * e.g. to print them or return them with the mutants.
+ *
+ * @see edu.wm.cs.muse.dataleak.DataLeak#setThreadCollector(LeakCollector)
+ */
+public interface LeakCollector {
+
+	/**
+	 * Called for every leak an operator inserts, in the order they are inserted,
+	 * on the thread mutating the unit.
+	 *
+	 * @param leak the leak
+	 */
+	void collect(Leak leak);
+}
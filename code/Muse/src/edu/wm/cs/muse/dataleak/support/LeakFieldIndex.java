@@ -0,0 +1,131 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.Type;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+
+/**
+ * Index from the types of a compilation unit to the identifiers of the leak
+ * fields they declare, i.e. the <code>String dataLeAk%d</code> fields inserted
+ * by the SOURCE operator. The index is built with a single pass over the tree
+ * the first time it is needed and kept as a property of the root, so finding
+ * the leak fields visible from a method does not scan the body of every
+ * enclosing type again.
+ */
+public final class LeakFieldIndex {
+
+	private static final String PROPERTY = LeakFieldIndex.class.getName();
+	private static final String LEAK_PREFIX = "dataLeAk";
+	private static final int[] NONE = new int[0];
+
+	private final Map<ASTNode, int[]> leakIds = new IdentityHashMap<ASTNode, int[]>();
+
+	private LeakFieldIndex(ASTNode root) {
+		root.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(TypeDeclaration node) {
+				add(node, node.bodyDeclarations());
+				return true;
+			}
+
+			@Override
+			public boolean visit(AnonymousClassDeclaration node) {
+				add(node, node.bodyDeclarations());
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * @return the index of the tree the node belongs to
+	 */
+	public static LeakFieldIndex of(ASTNode node) {
+		ASTNode root = node.getRoot();
+		Object index = root.getProperty(PROPERTY);
+		if (index == null) {
+			index = new LeakFieldIndex(root);
+			root.setProperty(PROPERTY, index);
+		}
+		return (LeakFieldIndex) index;
+	}
+
+	/**
+	 * @param type a type or anonymous class declaration
+	 * @return identifiers of the leak fields the type declares, in the order of
+	 *         their declaration. The array must not be modified.
+	 */
+	public int[] getLeakIds(ASTNode type) {
+		int[] ids = leakIds.get(type);
+		return ids == null ? NONE : ids;
+	}
+
+	/**
+	 * A leak field is declared as <code>String dataLeAk%d</code>, without
+	 * modifiers or javadoc, as the SOURCE and TAINT operators insert it.
+	 *
+	 * @return true if the field is declared as a leak field, whatever follows the
+	 *         <code>dataLeAk</code> prefix of its name
+	 */
+	public static boolean isLeakField(FieldDeclaration field) {
+		if (field.getJavadoc() != null || !field.modifiers().isEmpty()) {
+			return false;
+		}
+		Type type = field.getType();
+		return type.isSimpleType() && ((SimpleType) type).annotations().isEmpty()
+				&& ((SimpleType) type).getName().getFullyQualifiedName().equals("String")
+				&& getName(field).startsWith(LEAK_PREFIX);
+	}
+
+	/**
+	 * @return identifier of the leak field, or -1 if the field is not one
+	 */
+	public static int getLeakId(FieldDeclaration field) {
+		if (!isLeakField(field)) {
+			return -1;
+		}
+		String name = getName(field);
+		int end = LEAK_PREFIX.length();
+		while (end < name.length() && name.charAt(end) >= '0' && name.charAt(end) <= '9') {
+			end++;
+		}
+		return end == LEAK_PREFIX.length() ? -1 : Integer.valueOf(name.substring(LEAK_PREFIX.length(), end));
+	}
+
+	/**
+	 * @return the part of the name of the leak field that follows the
+	 *         <code>dataLeAk</code> prefix
+	 */
+	public static String getLeakName(FieldDeclaration field) {
+		return getName(field).substring(LEAK_PREFIX.length());
+	}
+
+	private static String getName(FieldDeclaration field) {
+		return ((VariableDeclarationFragment) field.fragments().get(0)).getName().getIdentifier();
+	}
+
+	private void add(ASTNode type, List<?> bodyDeclarations) {
+		int[] ids = new int[bodyDeclarations.size()];
+		int count = 0;
+		for (Object declaration : bodyDeclarations) {
+			if (declaration instanceof FieldDeclaration) {
+				int id = getLeakId((FieldDeclaration) declaration);
+				if (id >= 0) {
+					ids[count++] = id;
+				}
+			}
+		}
+		if (count > 0) {
+			leakIds.put(type, Arrays.copyOf(ids, count));
+		}
+	}
+}
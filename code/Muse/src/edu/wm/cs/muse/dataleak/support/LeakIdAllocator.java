@@ -0,0 +1,55 @@
+package edu.wm.cs.muse.dataleak.support;
+
+/**
+ * Hands out the identifiers used to name the injected data leaks. Every
+ * compilation unit gets its own range of identifiers, reserved from its position
+ * in the processing order, so the identifiers do not depend on which thread
+ * mutates the unit or when. The allocator holds no mutable state and can be
+ * shared by any number of threads.
+ * 
+ * @see LeakIdRange
+ */
+public class LeakIdAllocator {
+
+	/**
+	 * number of identifiers reserved for each compilation unit by default
+	 */
+	public static final int DEFAULT_RANGE_SIZE = 10000;
+
+	private final int rangeSize;
+
+	public LeakIdAllocator() {
+		this(DEFAULT_RANGE_SIZE);
+	}
+
+	/**
+	 * @param rangeSize number of identifiers reserved for each compilation unit
+	 */
+	public LeakIdAllocator(int rangeSize) {
+		if (rangeSize <= 0) {
+			throw new IllegalArgumentException("Range size must be positive: " + rangeSize);
+		}
+		this.rangeSize = rangeSize;
+	}
+
+	/**
+	 * Returns the identifiers reserved for the compilation unit at the given
+	 * position. Asking twice for the same position yields the same range.
+	 * 
+	 * @param ordinal position of the compilation unit in the processing order,
+	 *                starting at 0
+	 * @return a fresh range starting at <code>ordinal * rangeSize</code>
+	 */
+	public LeakIdRange getRange(int ordinal) {
+		long start = (long) ordinal * rangeSize;
+		if (ordinal < 0 || start + rangeSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(
+					String.format("No leak identifiers left for unit %d with range size %d", ordinal, rangeSize));
+		}
+		return new LeakIdRange((int) start, rangeSize);
+	}
+
+	public int getRangeSize() {
+		return rangeSize;
+	}
+}
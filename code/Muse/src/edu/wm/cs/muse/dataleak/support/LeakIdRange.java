@@ -0,0 +1,70 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The leak identifiers reserved for one compilation unit. It keeps two
+ * counters: the leak counter names the dataLeAk variables, and the sink counter
+ * numbers the sinks inserted by the TaintSink schema. Both start at the
+ * beginning of the range and may not leave it.
+ * 
+ * @see LeakIdAllocator
+ */
+public class LeakIdRange {
+
+	private final int start;
+	private final int end;
+	private final AtomicInteger counter;
+	private final AtomicInteger sinkCounter;
+
+	/**
+	 * @param start first identifier of the range
+	 * @param size  number of identifiers in the range
+	 */
+	public LeakIdRange(int start, int size) {
+		this.start = start;
+		this.end = start + size;
+		this.counter = new AtomicInteger(start);
+		this.sinkCounter = new AtomicInteger(start);
+	}
+
+	/**
+	 * @return the current value of the leak counter
+	 */
+	public int current() {
+		return counter.get();
+	}
+
+	/**
+	 * @return the current value of the leak counter, then advances it
+	 */
+	public int getAndIncrement() {
+		return check(counter.getAndIncrement());
+	}
+
+	/**
+	 * @return the leak counter after advancing it
+	 */
+	public int incrementAndGet() {
+		return check(counter.incrementAndGet());
+	}
+
+	/**
+	 * @return the current value of the sink counter, then advances it
+	 */
+	public int nextSinkId() {
+		return check(sinkCounter.getAndIncrement());
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	private int check(int id) {
+		if (id >= end) {
+			throw new IllegalStateException(String.format(
+					"Leak identifier %d is outside of the range [%d, %d); use a larger --id-range", id, start, end));
+		}
+		return id;
+	}
+}
@@ -0,0 +1,42 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.BadLocationException;
+
+/**
+ * Records the code the operators insert into a tree and applies it to the
+ * source the tree was parsed from. The operators only insert fixed statements
+ * and declarations into the lists of a node, e.g. the statements of a block or
+ * the body declarations of a class.
+ *
+ * @see RewriterType
+ */
+public interface LeakRewriter {
+
+	/**
+	 * Inserts the code into a list of the node, at the given index of the list
+	 * with the insertions made so far, as
+	 * {@link org.eclipse.jdt.core.dom.rewrite.ListRewrite#insertAt} does.
+	 *
+	 * @param node     node of the tree the rewriter was created for
+	 * @param property list property of the node
+	 * @param code     statement or declaration to insert
+	 * @param index    index of the inserted code in the list, or -1 to append it
+	 * @throws IndexOutOfBoundsException if the index is past the end of the list
+	 */
+	void insertAt(ASTNode node, ChildListPropertyDescriptor property, String code, int index);
+
+	/**
+	 * @param source the source the tree was parsed from
+	 * @return the source with the recorded insertions
+	 * @throws BadLocationException if the source does not match the tree
+	 */
+	String apply(String source) throws BadLocationException;
+
+	/**
+	 * @return an empty rewriter of the same kind for another tree
+	 */
+	LeakRewriter create(CompilationUnit root);
+}
@@ -0,0 +1,104 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A leak snippet with placeholders of the form <code>{{ name }}</code>, e.g.
+ * <code>android.util.Log.d("leak-{{ id }}", dataLeAk{{ id }});</code>. The
+ * text is split once into the literal segments and the variable of each
+ * placeholder, so rendering only appends them to a builder.
+ */
+public final class LeakTemplate {
+
+	private static final String OPEN = "{{";
+	private static final String CLOSE = "}}";
+
+	private final String text;
+	private final String[] literals;
+	private final int[] variables;
+
+	private LeakTemplate(String text, String[] literals, int[] variables) {
+		this.text = text;
+		this.literals = literals;
+		this.variables = variables;
+	}
+
+	/**
+	 * @param text      the snippet, in which every <code>{{</code> starts a
+	 *                  placeholder
+	 * @param variables names of the variables the placeholders may use, in the
+	 *                  order their values are given to render
+	 * @return the compiled template
+	 * @throws IllegalArgumentException if a placeholder is not closed or uses an
+	 *                                  unknown variable
+	 */
+	public static LeakTemplate compile(String text, String... variables) {
+		List<String> names = Arrays.asList(variables);
+		List<String> literals = new ArrayList<String>();
+		List<Integer> slots = new ArrayList<Integer>();
+		int start = 0;
+		int open = text.indexOf(OPEN);
+		while (open >= 0) {
+			int close = text.indexOf(CLOSE, open + OPEN.length());
+			if (close < 0) {
+				throw new IllegalArgumentException("Unclosed placeholder in template: " + text);
+			}
+			String name = text.substring(open + OPEN.length(), close).trim();
+			int slot = names.indexOf(name);
+			if (slot < 0) {
+				throw new IllegalArgumentException(
+						String.format("Unknown variable \"%s\" in template: %s", name, text));
+			}
+			literals.add(text.substring(start, open));
+			slots.add(slot);
+			start = close + CLOSE.length();
+			open = text.indexOf(OPEN, start);
+		}
+		literals.add(text.substring(start));
+
+		int[] variableSlots = new int[slots.size()];
+		for (int i = 0; i < variableSlots.length; i++) {
+			variableSlots[i] = slots.get(i);
+		}
+		return new LeakTemplate(text, literals.toArray(new String[literals.size()]), variableSlots);
+	}
+
+	/**
+	 * Appends the snippet to the builder, with the value of each variable in
+	 * place of its placeholders.
+	 *
+	 * @param out    the builder to append to
+	 * @param values values of the variables, in the order given to compile
+	 * @return the builder
+	 */
+	public StringBuilder render(StringBuilder out, int... values) {
+		for (int i = 0; i < variables.length; i++) {
+			out.append(literals[i]).append(values[variables[i]]);
+		}
+		return out.append(literals[variables.length]);
+	}
+
+	/**
+	 * @see #render(StringBuilder, int...)
+	 */
+	public StringBuilder render(StringBuilder out, String... values) {
+		for (int i = 0; i < variables.length; i++) {
+			out.append(literals[i]).append(values[variables[i]]);
+		}
+		return out.append(literals[variables.length]);
+	}
+
+	/**
+	 * @return the text the template was compiled from
+	 */
+	public String getText() {
+		return text;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
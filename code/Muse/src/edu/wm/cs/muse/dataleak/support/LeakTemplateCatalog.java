@@ -0,0 +1,185 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The templates of the snippets each operator inserts, read from a properties
+ * file. Each key is the part of the leak followed by the operator, e.g.
+ * <code>sink.SINK</code>, and may end with the index of a variant, e.g.
+ * <code>path.COMPLEXREACHABILITY.2</code>. The templates use the variables
+ * <code>id</code>, the leak identifier, and <code>sink</code>, the identifier
+ * of a sink of the leak. The variant of a leak is chosen by its identifier.
+ *
+ * The default catalog, <code>leak-templates.properties</code>, is loaded from
+ * the classpath. A catalog file replaces the variants of every key it defines,
+ * so new variants only need to be added to the file.
+ */
+public class LeakTemplateCatalog {
+
+	/**
+	 * The parts of a leak, in the order they are inserted.
+	 */
+	public enum Part {
+		DECLARATION, SOURCE, PATH, SINK;
+	}
+
+	public static final String[] VARIABLES = { "id", "sink" };
+
+	private static final String DEFAULT_CATALOG = "leak-templates.properties";
+	private static LeakTemplateCatalog defaultCatalog;
+
+	private final LeakTemplate[][][] templates;
+	private String hash;
+
+	private LeakTemplateCatalog(LeakTemplate[][][] templates) {
+		this.templates = templates;
+	}
+
+	/**
+	 * @return the catalog on the classpath, loaded on first use
+	 * @throws IllegalStateException if it cannot be read
+	 */
+	public static synchronized LeakTemplateCatalog getDefault() {
+		if (defaultCatalog == null) {
+			InputStream in = LeakTemplateCatalog.class.getResourceAsStream(DEFAULT_CATALOG);
+			if (in == null) {
+				throw new IllegalStateException("Missing " + DEFAULT_CATALOG + " on the classpath");
+			}
+			LeakTemplate[][][] templates = new LeakTemplate[Part.values().length][OperatorType.values().length][];
+			Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+			try {
+				try {
+					defaultCatalog = new LeakTemplateCatalog(read(reader, templates));
+				} finally {
+					reader.close();
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot read " + DEFAULT_CATALOG, e);
+			}
+		}
+		return defaultCatalog;
+	}
+
+	/**
+	 * @param file properties file in UTF-8
+	 * @return the default catalog with the templates of the file in place of
+	 *         those with the same keys
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if a key or a template is malformed
+	 */
+	public static LeakTemplateCatalog load(File file) throws IOException {
+		LeakTemplate[][][] templates = getDefault().templates.clone();
+		for (int i = 0; i < templates.length; i++) {
+			templates[i] = templates[i].clone();
+		}
+		Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+		try {
+			return new LeakTemplateCatalog(read(reader, templates));
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reads the properties into the templates, replacing the variants of each key
+	 * that is defined.
+	 */
+	private static LeakTemplate[][][] read(Reader reader, LeakTemplate[][][] templates) throws IOException {
+		Properties properties = new Properties();
+		properties.load(reader);
+		SortedMap<String, SortedMap<Integer, String>> variants = new TreeMap<String, SortedMap<Integer, String>>();
+		for (String key : properties.stringPropertyNames()) {
+			int separator = key.indexOf('.', key.indexOf('.') + 1);
+			String name = separator < 0 ? key : key.substring(0, separator);
+			int variant;
+			try {
+				variant = separator < 0 ? 0 : Integer.parseInt(key.substring(separator + 1));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Malformed template key: " + key);
+			}
+			if (!variants.containsKey(name)) {
+				variants.put(name, new TreeMap<Integer, String>());
+			}
+			if (variants.get(name).put(variant, properties.getProperty(key)) != null) {
+				throw new IllegalArgumentException("Template defined twice: " + key);
+			}
+		}
+
+		for (Map.Entry<String, SortedMap<Integer, String>> entry : variants.entrySet()) {
+			String name = entry.getKey();
+			int separator = name.indexOf('.');
+			Part part;
+			OperatorType operatorType;
+			try {
+				part = Part.valueOf(name.substring(0, Math.max(separator, 0)).toUpperCase());
+				operatorType = OperatorType.valueOf(name.substring(separator + 1));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown template key: " + name);
+			}
+			SortedMap<Integer, String> texts = entry.getValue();
+			if (texts.firstKey() != 0 || texts.lastKey() != texts.size() - 1) {
+				throw new IllegalArgumentException("Variants of " + name + " are not numbered from 0 without gaps");
+			}
+			LeakTemplate[] compiled = new LeakTemplate[texts.size()];
+			for (Map.Entry<Integer, String> text : texts.entrySet()) {
+				compiled[text.getKey()] = LeakTemplate.compile(text.getValue(), VARIABLES);
+			}
+			templates[part.ordinal()][operatorType.ordinal()] = compiled;
+		}
+		return templates;
+	}
+
+	/**
+	 * @param part         part of the leak
+	 * @param operatorType the operator inserting the leak
+	 * @param identifier   identifier of the leak, which chooses the variant
+	 * @return the template, or null if the operator has none for the part
+	 */
+	public LeakTemplate get(Part part, OperatorType operatorType, int identifier) {
+		LeakTemplate[] variants = templates[part.ordinal()][operatorType.ordinal()];
+		if (variants == null) {
+			return null;
+		}
+		int variant = identifier % variants.length;
+		return variants[variant < 0 ? variant + variants.length : variant];
+	}
+
+	/**
+	 * @return the number of variants of the part, 0 if the operator has none
+	 */
+	public int getVariantCount(Part part, OperatorType operatorType) {
+		LeakTemplate[] variants = templates[part.ordinal()][operatorType.ordinal()];
+		return variants == null ? 0 : variants.length;
+	}
+
+	/**
+	 * @return the hash of every template of the catalog, which changes with the
+	 *         snippets the operators insert
+	 */
+	public synchronized String getHash() {
+		if (hash == null) {
+			StringBuilder texts = new StringBuilder();
+			for (Part part : Part.values()) {
+				for (OperatorType operatorType : OperatorType.values()) {
+					LeakTemplate[] variants = templates[part.ordinal()][operatorType.ordinal()];
+					for (int i = 0; variants != null && i < variants.length; i++) {
+						texts.append(part).append('.').append(operatorType).append('.').append(i).append('=')
+								.append(variants[i].getText()).append('\n');
+					}
+				}
+			}
+			hash = MutationManifest.hash(texts.toString());
+		}
+		return hash;
+	}
+}
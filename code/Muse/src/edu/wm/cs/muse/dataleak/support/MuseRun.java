@@ -0,0 +1,403 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The settings of one run of Muse: the app to mutate, the operators and the
+ * options of the command line, together with where the run reports its
+ * progress and writes its mutants. Nothing is shared between runs, so several
+ * apps and operators can be mutated at once in the same JVM, each by its own
+ * {@link edu.wm.cs.muse.Muse} instance. The settings must not change once the
+ * run has started.
+ *
+ * @see edu.wm.cs.muse.Muse#Muse(MuseRun)
+ */
+public class MuseRun {
+
+	private final String binariesFolder;
+	private final String rootPath;
+	private final String appName;
+	private final String mutantsFolder;
+	private final List<OperatorType> operatorTypes;
+	private int threads = 1;
+	private int idRangeSize = LeakIdAllocator.DEFAULT_RANGE_SIZE;
+	private boolean batch;
+	private boolean incremental;
+	private boolean link;
+	private List<String> includes = FileSelector.DEFAULT_INCLUDES;
+	private List<String> excludes = FileSelector.DEFAULT_EXCLUDES;
+	private RewriterType rewriterType = RewriterType.AST;
+	private String templatesFile;
+	private LeakTemplateCatalog templates;
+	private MutantSink mutantSink;
+	private LeakCollector leakCollector;
+	private PrintStream out = System.out;
+	private PrintStream err = System.err;
+
+	/**
+	 * @param binariesFolder the folder that contains the binaries related to
+	 *                       lib4ast
+	 * @param rootPath       the folder of the source files of the app
+	 * @param appName        the name of the app, which names its folder under
+	 *                       the mutants folder
+	 * @param mutantsFolder  the folder where the mutated copies of the app are
+	 *                       kept
+	 * @param operatorTypes  the operators to execute, in order
+	 */
+	public MuseRun(String binariesFolder, String rootPath, String appName, String mutantsFolder,
+			OperatorType... operatorTypes) {
+		this(binariesFolder, rootPath, appName, mutantsFolder, Arrays.asList(operatorTypes));
+	}
+
+	/**
+	 * @see #MuseRun(String, String, String, String, OperatorType...)
+	 */
+	public MuseRun(String binariesFolder, String rootPath, String appName, String mutantsFolder,
+			List<OperatorType> operatorTypes) {
+		List<OperatorType> distinct = new ArrayList<OperatorType>();
+		for (OperatorType operatorType : operatorTypes) {
+			if (!distinct.contains(operatorType)) {
+				distinct.add(operatorType);
+			}
+		}
+		if (distinct.isEmpty()) {
+			throw new IllegalArgumentException("No operator to execute");
+		}
+		this.binariesFolder = binariesFolder;
+		this.rootPath = rootPath;
+		this.appName = appName;
+		this.mutantsFolder = mutantsFolder;
+		this.operatorTypes = Collections.unmodifiableList(distinct);
+	}
+
+	/**
+	 * Reads the settings from the arguments of the command line: the five
+	 * positional arguments followed by the optional <code>--name=value</code>
+	 * options and <code>--name</code> flags.
+	 *
+	 * @param args contains the arguments provided through command line
+	 * @return the settings
+	 * @throws IllegalArgumentException if an argument is missing, or an operator
+	 *                                  or option is unknown or malformed
+	 */
+	public static MuseRun fromArguments(String[] args) {
+		if (args.length < 5) {
+			throw new IllegalArgumentException("Missing arguments");
+		}
+		List<OperatorType> operatorTypes = new ArrayList<OperatorType>();
+		for (String inputOperator : args[4].split(",")) {
+			operatorTypes.add(OperatorType.valueOf(inputOperator.trim()));
+		}
+		MuseRun run = new MuseRun(args[0], args[1], args[2], args[3], operatorTypes);
+		for (int i = 5; i < args.length; i++) {
+			run.setOption(args[i]);
+		}
+		return run;
+	}
+
+	private void setOption(String option) {
+		if (!option.startsWith("--")) {
+			throw new IllegalArgumentException("Not an option: " + option);
+		}
+		int separator = option.indexOf('=');
+		String name = separator < 0 ? option.substring(2) : option.substring(2, separator);
+		String value = separator < 0 ? null : option.substring(separator + 1);
+		if (value == null) {
+			switch (name) {
+			case "batch":
+				setBatch(true);
+				return;
+			case "incremental":
+				setIncremental(true);
+				return;
+			case "link":
+				setLink(true);
+				return;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + option);
+			}
+		}
+		switch (name) {
+		case "threads":
+			setThreads(Integer.parseInt(value));
+			return;
+		case "id-range":
+			setIdRangeSize(Integer.parseInt(value));
+			return;
+		case "include":
+			setIncludes(splitPatterns(value));
+			return;
+		case "exclude":
+			setExcludes(splitPatterns(value));
+			return;
+		case "rewriter":
+			setRewriterType(RewriterType.valueOf(value.toUpperCase()));
+			return;
+		case "templates":
+			if (value.isEmpty()) {
+				throw new IllegalArgumentException("Missing templates file");
+			}
+			setTemplatesFile(value);
+			return;
+		default:
+			throw new IllegalArgumentException("Unknown option: " + option);
+		}
+	}
+
+	private static List<String> splitPatterns(String value) {
+		List<String> patterns = new ArrayList<String>();
+		for (String pattern : value.split(",")) {
+			if (!pattern.trim().isEmpty()) {
+				patterns.add(pattern.trim());
+			}
+		}
+		return patterns;
+	}
+
+	/**
+	 * @return the folder that contains the binaries related to lib4ast
+	 */
+	public String getBinariesFolder() {
+		return binariesFolder;
+	}
+
+	/**
+	 * @return the path where the source files reside. Source files may be under
+	 *         sub-directories in this root path
+	 */
+	public String getRootPath() {
+		return rootPath;
+	}
+
+	/**
+	 * @return the name of the app. Is used for creating folder under Mutants Folder
+	 *         for app and for other purposes.
+	 */
+	public String getAppName() {
+		return appName;
+	}
+
+	/**
+	 * @return returns the path of the folder where the mutated source files will be
+	 *         kept.
+	 */
+	public String getMutantsFolder() {
+		return mutantsFolder;
+	}
+
+	/**
+	 * @return the operators to execute, in order and without repetitions
+	 */
+	public List<OperatorType> getOperatorTypes() {
+		return operatorTypes;
+	}
+
+	/**
+	 * @return number of worker threads used to process compilation units, set
+	 *         through <code>--threads=N</code>. Defaults to 1, i.e. sequential
+	 *         processing.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * @return number of leak identifiers reserved for each source file, set
+	 *         through <code>--id-range=N</code>. The identifiers of the n-th file
+	 *         start at <code>n * N</code>.
+	 */
+	public int getIdRangeSize() {
+		return idRangeSize;
+	}
+
+	public void setIdRangeSize(int idRangeSize) {
+		if (idRangeSize <= 0) {
+			throw new IllegalArgumentException("Range size must be positive: " + idRangeSize);
+		}
+		this.idRangeSize = idRangeSize;
+	}
+
+	/**
+	 * @return true if all the source files are parsed in a single pass, set
+	 *         through <code>--batch</code>
+	 */
+	public boolean isBatch() {
+		return batch;
+	}
+
+	public void setBatch(boolean batch) {
+		this.batch = batch;
+	}
+
+	/**
+	 * @return true if the mutants of a previous run are kept and only the source
+	 *         files that changed are mutated again, set through
+	 *         <code>--incremental</code>
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * @return true if the files of the app are hard linked into the mutants
+	 *         folder instead of copied, set through <code>--link</code>
+	 */
+	public boolean isLink() {
+		return link;
+	}
+
+	public void setLink(boolean link) {
+		this.link = link;
+	}
+
+	/**
+	 * @return glob patterns of the source files to mutate, set through
+	 *         <code>--include=GLOB,...</code>
+	 * @see FileSelector
+	 */
+	public List<String> getIncludes() {
+		return includes;
+	}
+
+	public void setIncludes(List<String> includes) {
+		if (includes.isEmpty()) {
+			throw new IllegalArgumentException("No source files to include");
+		}
+		this.includes = includes;
+	}
+
+	/**
+	 * @return glob patterns of the files and folders that are not mutated, set
+	 *         through <code>--exclude=GLOB,...</code>. An empty value excludes
+	 *         nothing.
+	 * @see FileSelector
+	 */
+	public List<String> getExcludes() {
+		return excludes;
+	}
+
+	public void setExcludes(List<String> excludes) {
+		this.excludes = excludes;
+	}
+
+	/**
+	 * @return how the changes of the operators are applied to the source, set
+	 *         through <code>--rewriter=ast|text</code>. Defaults to AST.
+	 */
+	public RewriterType getRewriterType() {
+		return rewriterType;
+	}
+
+	public void setRewriterType(RewriterType rewriterType) {
+		this.rewriterType = rewriterType;
+	}
+
+	/**
+	 * @return the catalog file of leak templates set through
+	 *         <code>--templates=FILE</code>, or null to use the default templates
+	 * @see LeakTemplateCatalog
+	 */
+	public String getTemplatesFile() {
+		return templatesFile;
+	}
+
+	public void setTemplatesFile(String templatesFile) {
+		this.templatesFile = templatesFile;
+	}
+
+	/**
+	 * Sets the templates of the leaks inserted by the run, in place of the
+	 * templates file.
+	 */
+	public void setTemplates(LeakTemplateCatalog templates) {
+		this.templates = templates;
+	}
+
+	/**
+	 * @return the templates set for the run, else the ones of the templates file,
+	 *         else the default ones
+	 * @throws IOException              if the templates file cannot be read
+	 * @throws IllegalArgumentException if the templates file is malformed
+	 */
+	public LeakTemplateCatalog loadTemplates() throws IOException {
+		if (templates != null) {
+			return templates;
+		}
+		return templatesFile == null ? LeakTemplateCatalog.getDefault()
+				: LeakTemplateCatalog.load(new File(templatesFile));
+	}
+
+	/**
+	 * @return where the mutants are written, or null to write them to the copies
+	 *         of the app in the mutants folder
+	 */
+	public MutantSink getMutantSink() {
+		return mutantSink;
+	}
+
+	/**
+	 * Sends the mutants to the sink instead of the copies of the app, which are
+	 * still set up in the mutants folder.
+	 */
+	public void setMutantSink(MutantSink mutantSink) {
+		this.mutantSink = mutantSink;
+	}
+
+	/**
+	 * @return what collects the leaks the operators insert, or null to print them
+	 *         to the output of the run
+	 */
+	public LeakCollector getLeakCollector() {
+		return leakCollector;
+	}
+
+	/**
+	 * Hands the leaks the operators insert to the collector instead of printing
+	 * them. It is called by every thread mutating the app.
+	 */
+	public void setLeakCollector(LeakCollector leakCollector) {
+		this.leakCollector = leakCollector;
+	}
+
+	/**
+	 * @return where the progress of the run is printed, by default the standard
+	 *         output
+	 */
+	public PrintStream getOut() {
+		return out;
+	}
+
+	public void setOut(PrintStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * @return where the errors of the run are printed, by default the standard
+	 *         error
+	 */
+	public PrintStream getErr() {
+		return err;
+	}
+
+	public void setErr(PrintStream err) {
+		this.err = err;
+	}
+}
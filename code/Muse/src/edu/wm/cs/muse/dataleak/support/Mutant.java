@@ -0,0 +1,69 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The source of a compilation unit mutated by an operator, together with the
+ * leaks the operator inserted in it.
+ */
+public class Mutant {
+
+	private final String path;
+	private final OperatorType operatorType;
+	private final String source;
+	private final int firstLeakId;
+	private final List<Leak> leaks;
+
+	/**
+	 * @param path         path of the compilation unit, as given to be mutated
+	 * @param operatorType the operator that generated the mutant
+	 * @param source       the mutated source
+	 * @param firstLeakId  first identifier of the range reserved for the unit
+	 * @param leaks        the leaks inserted, in the order they were reported
+	 */
+	public Mutant(String path, OperatorType operatorType, String source, int firstLeakId, List<Leak> leaks) {
+		this.path = path;
+		this.operatorType = operatorType;
+		this.source = source;
+		this.firstLeakId = firstLeakId;
+		this.leaks = Collections.unmodifiableList(leaks);
+	}
+
+	/**
+	 * @return path of the compilation unit, or null if it was given without
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	public OperatorType getOperatorType() {
+		return operatorType;
+	}
+
+	/**
+	 * @return the mutated source
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * @return first identifier of the range reserved for the unit
+	 */
+	public int getFirstLeakId() {
+		return firstLeakId;
+	}
+
+	/**
+	 * @return the leaks inserted, in the order they were reported
+	 */
+	public List<Leak> getLeaks() {
+		return leaks;
+	}
+
+	@Override
+	public String toString() {
+		return operatorType + " mutant of " + path + " with " + leaks.size() + " leaks";
+	}
+}
@@ -0,0 +1,23 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.io.IOException;
+
+/**
+ * Receives the mutants of a run. By default each mutant is written to the same
+ * path in the copy of the app of its operator.
+ *
+ * @see MuseRun#setMutantSink(MutantSink)
+ */
+public interface MutantSink {
+
+	/**
+	 * Called once for every mutated source file and operator, possibly from
+	 * several threads at once.
+	 *
+	 * @param operatorType the operator that generated the mutant
+	 * @param path         path of the source file relative to the root of the app
+	 * @param mutant       the mutated source
+	 * @throws IOException if the mutant cannot be stored, which fails the run
+	 */
+	void write(OperatorType operatorType, String path, String mutant) throws IOException;
+}
@@ -0,0 +1,260 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Records, for every mutant of an output folder, the inputs it was generated
+ * from: the hash of the original source, the operator, the version and build of
+ * Muse, the rewriter, the hash of the leak templates and the first leak
+ * identifier of the file. An incremental run only mutates again the files whose
+ * inputs differ from the recorded ones.
+ *
+ * The manifest is kept next to the output folder, in a file with the name of
+ * the folder and the <code>.manifest</code> extension, so it is not part of the
+ * mutated app. Entries can be recorded from several threads.
+ */
+public class MutationManifest {
+
+	private static final String HEADER = "# Muse mutation manifest: path, source hash, operator, version, build, rewriter, "
+			+ "templates hash, first leak id";
+	private static final String PACKAGE_ROOT = "edu/wm/cs/muse/";
+	private static final String UNKNOWN_BUILD = "unknown";
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * version of Muse recorded with each mutant. Mutants of a different version are
+	 * generated again.
+	 */
+	public static final String TOOL_VERSION = getToolVersion();
+
+	/**
+	 * hash of the classes and resources of Muse, recorded with each mutant so that
+	 * a build with different operators generates them again, even with the same
+	 * version. Null if they could not be read, in which case no mutant is up to
+	 * date.
+	 */
+	public static final String BUILD_HASH = getBuildHash();
+
+	private final File file;
+	private final String settings;
+	private final ConcurrentHashMap<String, String> entries = new ConcurrentHashMap<String, String>();
+
+	private MutationManifest(File file, String settings) {
+		this.file = file;
+		this.settings = settings;
+	}
+
+	/**
+	 * Reads the manifest of the output folder. A missing manifest is empty.
+	 *
+	 * @param outputRoot   folder where the mutated copy of the app is kept
+	 * @param rewriterType how the run applies the changes of the operators
+	 * @param templates    the templates the run renders the leaks from
+	 * @throws IOException if the manifest exists but cannot be read
+	 */
+	public static MutationManifest load(File outputRoot, RewriterType rewriterType, LeakTemplateCatalog templates)
+			throws IOException {
+		MutationManifest manifest = new MutationManifest(
+				new File(outputRoot.getAbsoluteFile().getParentFile(), outputRoot.getName() + ".manifest"),
+				TOOL_VERSION + '\t' + (BUILD_HASH == null ? UNKNOWN_BUILD : BUILD_HASH) + '\t' + rewriterType + '\t'
+						+ templates.getHash());
+		if (!manifest.file.exists()) {
+			return manifest;
+		}
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest.file), UTF_8));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int separator = line.indexOf('\t');
+				if (line.startsWith("#") || separator < 0) {
+					continue;
+				}
+				manifest.entries.put(line.substring(0, separator), line.substring(separator + 1));
+			}
+		} finally {
+			reader.close();
+		}
+		return manifest;
+	}
+
+	/**
+	 * @param path         path of the source file, relative to the root of the app
+	 * @param hash         hash of the original source, see {@link #hash(String)}
+	 * @param operatorType operator the mutant is generated with
+	 * @param leakIdStart  first leak identifier reserved for the file
+	 * @return true if the recorded mutant was generated from the same inputs, by
+	 *         the same build and with the same rewriter and templates
+	 */
+	public boolean isCurrent(String path, String hash, OperatorType operatorType, int leakIdStart) {
+		return BUILD_HASH != null && describe(hash, operatorType, leakIdStart).equals(entries.get(path));
+	}
+
+	/**
+	 * @param path path of the source file, relative to the root of the app
+	 * @return the first leak identifier the mutant of the file was generated
+	 *         with, or -1 if the manifest has no mutant of the file
+	 */
+	public int getLeakIdStart(String path) {
+		String entry = entries.get(path);
+		if (entry == null) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(entry.substring(entry.lastIndexOf('\t') + 1));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Records that the mutant of the file has been generated from the given
+	 * inputs, with the build, rewriter and templates of the manifest.
+	 */
+	public void record(String path, String hash, OperatorType operatorType, int leakIdStart) {
+		entries.put(path, describe(hash, operatorType, leakIdStart));
+	}
+
+	/**
+	 * Forgets the files that are no longer part of the app.
+	 *
+	 * @param paths the source files of the app
+	 */
+	public void retain(Collection<String> paths) {
+		entries.keySet().retainAll(paths);
+	}
+
+	/**
+	 * Writes the manifest, replacing the previous one only once it is complete.
+	 */
+	public void save() throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		Writer writer = new OutputStreamWriter(new FileOutputStream(temp), UTF_8);
+		try {
+			writer.write(HEADER);
+			writer.write('\n');
+			for (Map.Entry<String, String> entry : new TreeMap<String, String>(entries).entrySet()) {
+				writer.write(entry.getKey());
+				writer.write('\t');
+				writer.write(entry.getValue());
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * @return the hexadecimal SHA-1 hash of the source
+	 */
+	public static String hash(String source) {
+		try {
+			return toHex(newDigest().digest(source.getBytes(UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String describe(String hash, OperatorType operatorType, int leakIdStart) {
+		return hash + '\t' + operatorType + '\t' + settings + '\t' + leakIdStart;
+	}
+
+	private static MessageDigest newDigest() throws NoSuchAlgorithmException {
+		return MessageDigest.getInstance("SHA-1");
+	}
+
+	private static String toHex(byte[] digest) {
+		StringBuilder hex = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static String getToolVersion() {
+		String version = MutationManifest.class.getPackage().getImplementationVersion();
+		return version == null ? "dev" : version;
+	}
+
+	/**
+	 * Hashes the classes and resources under the package of Muse, in the jar or
+	 * folder it was loaded from. The entries of a jar are hashed by name and CRC,
+	 * which the jar already records, so that repackaging the same classes keeps
+	 * the hash.
+	 */
+	private static String getBuildHash() {
+		CodeSource codeSource = MutationManifest.class.getProtectionDomain().getCodeSource();
+		if (codeSource == null) {
+			return null;
+		}
+		try {
+			URL location = codeSource.getLocation();
+			File origin = new File(location.toURI());
+			MessageDigest digest = newDigest();
+			if (origin.isDirectory()) {
+				hashFolder(digest, new File(origin, PACKAGE_ROOT), PACKAGE_ROOT);
+			} else {
+				JarFile jar = new JarFile(origin);
+				try {
+					TreeMap<String, Long> crcs = new TreeMap<String, Long>();
+					Enumeration<JarEntry> entries = jar.entries();
+					while (entries.hasMoreElements()) {
+						JarEntry entry = entries.nextElement();
+						if (entry.getName().startsWith(PACKAGE_ROOT) && !entry.isDirectory()) {
+							crcs.put(entry.getName(), entry.getCrc());
+						}
+					}
+					for (Map.Entry<String, Long> crc : crcs.entrySet()) {
+						digest.update((crc.getKey() + '\t' + crc.getValue() + '\n').getBytes(UTF_8));
+					}
+				} finally {
+					jar.close();
+				}
+			}
+			return toHex(digest.digest());
+		} catch (IOException | URISyntaxException | IllegalArgumentException | NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	private static void hashFolder(MessageDigest digest, File folder, String path) throws IOException {
+		String[] names = folder.list();
+		if (names == null) {
+			throw new IOException("Cannot list " + folder);
+		}
+		Arrays.sort(names);
+		for (String name : names) {
+			File file = new File(folder, name);
+			if (file.isDirectory()) {
+				hashFolder(digest, file, path + name + '/');
+			} else {
+				digest.update((path + name + '\n').getBytes(UTF_8));
+				digest.update(Files.readAllBytes(file.toPath()));
+			}
+		}
+	}
+}
@@ -1,5 +1,10 @@
 package edu.wm.cs.muse.dataleak.support;
 
+/**
+ * The mutation operators. None of them resolves bindings: the schemas and
+ * operators only look at node types, modifiers and names, so the compilation
+ * units are parsed without the classpath of the app.
+ */
 public enum OperatorType {
 	SOURCE, SINK, TAINT, REACHABILITY, TAINTSINK, COMPLEXREACHABILITY
 }
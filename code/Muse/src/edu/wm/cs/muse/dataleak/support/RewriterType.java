@@ -0,0 +1,24 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * The ways the insertions of the operators can be applied to the source.
+ */
+public enum RewriterType {
+	/**
+	 * through an ASTRewrite, see {@link ASTLeakRewriter}
+	 */
+	AST,
+	/**
+	 * directly into the text of the source, see {@link TextLeakRewriter}
+	 */
+	TEXT;
+
+	/**
+	 * @return an empty rewriter for the tree
+	 */
+	public LeakRewriter newRewriter(CompilationUnit root) {
+		return this == TEXT ? new TextLeakRewriter(root) : new ASTLeakRewriter(root);
+	}
+}
@@ -0,0 +1,198 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.BadLocationException;
+
+/**
+ * Inserts the code directly into the text of the source. The insertions are
+ * kept in a copy of every list they are made into, so indices are interpreted
+ * as by {@link ASTLeakRewriter}. When applied, each insertion is placed on a
+ * line of its own after the preceding element of the list, before the
+ * following one if it is the first, or before the closing brace of the node if
+ * the list is empty, with the indentation of that element or node. The source
+ * is then copied once with all the insertions sorted by offset.
+ *
+ * The code is placed where {@link ASTLeakRewriter} places it, and only the
+ * layout of the inserted lines may differ. Comments next to an element stay
+ * with it, as the extended ranges of the compilation unit are used.
+ */
+public class TextLeakRewriter implements LeakRewriter {
+
+	private static final String INDENTATION = "\t";
+
+	private final CompilationUnit root;
+	private final Map<ASTNode, Map<ChildListPropertyDescriptor, List<Object>>> lists =
+			new IdentityHashMap<ASTNode, Map<ChildListPropertyDescriptor, List<Object>>>();
+	private final List<ASTNode> nodes = new ArrayList<ASTNode>();
+
+	public TextLeakRewriter(CompilationUnit root) {
+		this.root = root;
+	}
+
+	@Override
+	public void insertAt(ASTNode node, ChildListPropertyDescriptor property, String code, int index) {
+		if (node.getRoot() != root) {
+			throw new IllegalArgumentException("Node is not part of the tree of the rewriter");
+		}
+		Map<ChildListPropertyDescriptor, List<Object>> properties = lists.get(node);
+		if (properties == null) {
+			properties = new IdentityHashMap<ChildListPropertyDescriptor, List<Object>>();
+			lists.put(node, properties);
+			nodes.add(node);
+		}
+		List<Object> list = properties.get(property);
+		if (list == null) {
+			list = new ArrayList<Object>((List<?>) node.getStructuralProperty(property));
+			properties.put(property, list);
+		}
+		if (index == -1) {
+			list.add(code);
+		} else {
+			list.add(index, code);
+		}
+	}
+
+	@Override
+	public String apply(String source) throws BadLocationException {
+		if (root.getStartPosition() + root.getLength() > source.length()) {
+			throw new BadLocationException("Source does not match the tree of the rewriter");
+		}
+		String lineSeparator = getLineSeparator(source);
+		List<Insertion> insertions = new ArrayList<Insertion>();
+		for (ASTNode node : nodes) {
+			for (List<Object> list : lists.get(node).values()) {
+				addInsertions(source, lineSeparator, node, list, insertions);
+			}
+		}
+		// insertions at the same offset keep the order they were added in
+		Collections.sort(insertions);
+
+		int length = source.length();
+		for (Insertion insertion : insertions) {
+			length += insertion.text.length();
+		}
+		StringBuilder result = new StringBuilder(length);
+		int copied = 0;
+		for (Insertion insertion : insertions) {
+			result.append(source, copied, insertion.offset).append(insertion.text);
+			copied = insertion.offset;
+		}
+		return result.append(source, copied, source.length()).toString();
+	}
+
+	@Override
+	public LeakRewriter create(CompilationUnit root) {
+		return new TextLeakRewriter(root);
+	}
+
+	private void addInsertions(String source, String lineSeparator, ASTNode node, List<Object> list,
+			List<Insertion> insertions) {
+		ASTNode previous = null;
+		List<String> leading = new ArrayList<String>();
+		for (Object element : list) {
+			if (element instanceof ASTNode) {
+				ASTNode current = (ASTNode) element;
+				if (previous == null && !leading.isEmpty()) {
+					int start = root.getExtendedStartPosition(current);
+					String indentation = getIndentation(source, start);
+					for (String code : leading) {
+						insertions.add(new Insertion(start, insertions.size(), code + lineSeparator + indentation));
+					}
+				}
+				previous = current;
+			} else if (previous != null) {
+				int start = root.getExtendedStartPosition(previous);
+				int end = start + root.getExtendedLength(previous);
+				insertions.add(new Insertion(end, insertions.size(),
+						lineSeparator + getIndentation(source, start) + element));
+			} else {
+				leading.add((String) element);
+			}
+		}
+		if (previous == null && !leading.isEmpty()) {
+			addInsertionsIntoEmptyList(source, lineSeparator, node, leading, insertions);
+		}
+	}
+
+	/**
+	 * Places the code before the closing brace of the node, on lines indented
+	 * one level more than the brace.
+	 */
+	private void addInsertionsIntoEmptyList(String source, String lineSeparator, ASTNode node, List<String> codes,
+			List<Insertion> insertions) {
+		int end = node.getStartPosition() + node.getLength();
+		int brace = end > 0 && source.charAt(end - 1) == '}' ? end - 1 : end;
+		int lineStart = getLineStart(source, brace);
+		String indentation = getIndentation(source, brace);
+		if (lineStart + indentation.length() == brace) {
+			// the brace is on a line of its own
+			for (String code : codes) {
+				insertions.add(new Insertion(lineStart, insertions.size(),
+						indentation + INDENTATION + code + lineSeparator));
+			}
+		} else {
+			for (String code : codes) {
+				insertions.add(new Insertion(brace, insertions.size(),
+						lineSeparator + indentation + INDENTATION + code));
+			}
+			insertions.add(new Insertion(brace, insertions.size(), lineSeparator + indentation));
+		}
+	}
+
+	private static int getLineStart(String source, int offset) {
+		int lineStart = offset;
+		while (lineStart > 0 && source.charAt(lineStart - 1) != '\n' && source.charAt(lineStart - 1) != '\r') {
+			lineStart--;
+		}
+		return lineStart;
+	}
+
+	/**
+	 * @return the white space the line of the offset starts with
+	 */
+	private static String getIndentation(String source, int offset) {
+		int lineStart = getLineStart(source, offset);
+		int indentationEnd = lineStart;
+		while (indentationEnd < offset
+				&& (source.charAt(indentationEnd) == ' ' || source.charAt(indentationEnd) == '\t')) {
+			indentationEnd++;
+		}
+		return source.substring(lineStart, indentationEnd);
+	}
+
+	private static String getLineSeparator(String source) {
+		int newLine = source.indexOf('\n');
+		if (newLine > 0 && source.charAt(newLine - 1) == '\r') {
+			return "\r\n";
+		}
+		return newLine < 0 && source.indexOf('\r') >= 0 ? "\r" : "\n";
+	}
+
+	private static class Insertion implements Comparable<Insertion> {
+		final int offset;
+		final int order;
+		final String text;
+
+		Insertion(int offset, int order, String text) {
+			this.offset = offset;
+			this.order = order;
+			this.text = text;
+		}
+
+		@Override
+		public int compareTo(Insertion other) {
+			if (offset != other.offset) {
+				return offset < other.offset ? -1 : 1;
+			}
+			return order < other.order ? -1 : (order == other.order ? 0 : 1);
+		}
+	}
+}
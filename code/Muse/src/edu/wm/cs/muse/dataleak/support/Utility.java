@@ -1,6 +0,0 @@
-package edu.wm.cs.muse.dataleak.support;
-
-public class Utility {
-	public static int COUNTER_GLOBAL = 0;
-	public static int COUNTER_GLOBAL_TSINK = 0;
-}
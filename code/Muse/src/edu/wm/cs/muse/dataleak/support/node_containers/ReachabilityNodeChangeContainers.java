@@ -13,13 +13,14 @@ public class ReachabilityNodeChangeContainers {
 	public ASTNode node;
 	public int index;
 	public ChildListPropertyDescriptor propertyDescriptor;
-	public String changedSource = null;
+	// where the leak inserted by the change is reported to be
+	public String location = null;
 	public ReachabilityNodeChangeContainers(ASTNode node, int index,
-			ChildListPropertyDescriptor childListPropertyDescriptor, String changedSource) {
+			ChildListPropertyDescriptor childListPropertyDescriptor, String location) {
 		this.node = node;
 		this.index = index;
 		propertyDescriptor = childListPropertyDescriptor;
-		this.changedSource = changedSource;
+		this.location = location;
 		
 		
 	}
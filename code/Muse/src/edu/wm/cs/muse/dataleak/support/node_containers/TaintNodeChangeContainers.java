@@ -1,6 +1,6 @@
 package edu.wm.cs.muse.dataleak.support.node_containers;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
@@ -19,11 +19,11 @@ public class TaintNodeChangeContainers {
 	public int index;
 	public ChildListPropertyDescriptor propertyDescriptor;
 	public int count;
-	public ArrayList<FieldDeclaration> fieldBoys;
+	public List<FieldDeclaration> fieldBoys;
 	
 	//Uses the class node to check which fields go with which methods, then adds all the sink-fields
 	//to those methods
-	public TaintNodeChangeContainers(ASTNode node, ArrayList<FieldDeclaration> fieldBoys, int index, 
+	public TaintNodeChangeContainers(ASTNode node, List<FieldDeclaration> fieldBoys, int index, 
 			ChildListPropertyDescriptor childListPropertyDescriptor, int count)
 	{
 		this.node = node;
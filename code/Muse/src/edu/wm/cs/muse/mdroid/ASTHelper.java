@@ -4,12 +4,10 @@ package edu.wm.cs.muse.mdroid;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
 
-import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
@@ -18,33 +16,13 @@ import org.eclipse.jdt.core.dom.Statement;
 
 public class ASTHelper {
 	
-public static CompilationUnit getAST(String source, String binariesFolder, String sourceRootFolder) {
-		
-		
-		HashMap options = new HashMap();
-		List<String> jars = getJarsInfolder(binariesFolder);
-		String[] classPath = new String[jars.size()];
-		for(int i = 0; i < classPath.length; i++){
-			classPath[i] = binariesFolder+File.separator+jars.get(i);
-		}
-		String[] srcPath = {sourceRootFolder};
-		
-		ASTParser parser = ASTParser.newParser(AST.JLS8);
-		options.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
-		options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
-		options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
-		options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
-		parser.setCompilerOptions(options);
-		
-		parser.setSource(source.toCharArray());
-		parser.setEnvironment(classPath, srcPath, null, false);
-		   
-		parser.setKind(ASTParser.K_COMPILATION_UNIT);
-		parser.setResolveBindings(true);
-		parser.setBindingsRecovery(true);
-		
-		
-		return (CompilationUnit) parser.createAST(new NullProgressMonitor());
+	/**
+	 * Parses the source with bindings resolved against the environment of the
+	 * given folders. Callers parsing many sources should create a
+	 * {@link ParserEnvironment} once instead.
+	 */
+	public static CompilationUnit getAST(String source, String binariesFolder, String sourceRootFolder) {
+		return new ParserEnvironment(binariesFolder, sourceRootFolder).parse(source, true);
 	}
 	
 	
@@ -81,6 +59,9 @@ public static CompilationUnit getAST(String source, String binariesFolder, Strin
 	public static List<String> getJarsInfolder(String binariesFolder){
 		List<String> jars = new ArrayList<String>();
 		String[] files = (new File(binariesFolder)).list();
+		if (files == null) {
+			return jars;
+		}
 		for (String file : files) {
 			if(file.endsWith(".jar")){
 				jars.add(file);
@@ -96,6 +77,17 @@ public static CompilationUnit getAST(String source, String binariesFolder, Strin
 		return  mcVisitor.getCalls();
 	}
 	
+	/**
+	 * @return the calls in the tree of the APIs of the catalog, which needs
+	 *         bindings to resolve the type of each receiver
+	 */
+	public static HashSet<MethodCallVO> getMethodCallsFromCU(CompilationUnit cu, ApiCatalog catalog){
+		MethodCallVisitor mcVisitor = new MethodCallVisitor();
+		mcVisitor.setCatalog(catalog);
+		cu.accept(mcVisitor);
+		return  mcVisitor.getCalls();
+	}
+	
 	public static HashSet<MethodDeclarationVO> getMethodDeclarationsFromCU(CompilationUnit cu, HashSet<String> targetDeclarations){
 		MethodDeclarationVisitor mdVisitor = new MethodDeclarationVisitor(targetDeclarations);
 		cu.accept(mdVisitor);
@@ -109,6 +101,17 @@ public static CompilationUnit getAST(String source, String binariesFolder, Strin
 		return  ciVisitor.getCalls();
 	}
 	
+	/**
+	 * @return the constructor calls in the tree of the APIs of the catalog,
+	 *         which needs bindings to resolve each constructor
+	 */
+	public static HashSet<MethodCallVO> getClassInstanceCreationsFromCU(CompilationUnit cu, ApiCatalog catalog){
+		ClassInstanceVisitor ciVisitor = new ClassInstanceVisitor();
+		ciVisitor.setCatalog(catalog);
+		cu.accept(ciVisitor);
+		return  ciVisitor.getCalls();
+	}
+	
 	
 	
 
@@ -0,0 +1,160 @@
+package edu.wm.cs.muse.mdroid;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A set of Android APIs, e.g. the sources or the sinks of a SuSi list, indexed
+ * by the simple name of their type, as given by type bindings, and then by the
+ * method name. Both names are interned, so the types and methods shared by
+ * many entries are stored once. Looking up a call site does not allocate.
+ */
+public class ApiCatalog {
+
+	/**
+	 * method name of constructors, as in SuSi lists
+	 */
+	public static final String CONSTRUCTOR = "<init>";
+
+	private final Map<String, Set<String>> methodsByType = new HashMap<String, Set<String>>();
+	private int size;
+
+	/**
+	 * Reads a catalog with one API per line, either in the SuSi format, e.g.
+	 * <code>&lt;android.telephony.TelephonyManager: java.lang.String getDeviceId()&gt; (UNIQUE_IDENTIFIER)</code>,
+	 * or as the type name followed by the method name, e.g.
+	 * <code>TelephonyManager.getDeviceId</code>. Empty lines, lines starting with
+	 * <code>#</code> and category headers ending with <code>:</code> are skipped.
+	 *
+	 * @param file the catalog, in UTF-8
+	 * @return the catalog
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if a line is malformed
+	 */
+	public static ApiCatalog load(File file) throws IOException {
+		Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+		try {
+			return read(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * @see #load(File)
+	 */
+	public static ApiCatalog read(Reader reader) throws IOException {
+		ApiCatalog catalog = new ApiCatalog();
+		BufferedReader lines = new BufferedReader(reader);
+		int number = 0;
+		String line;
+		while ((line = lines.readLine()) != null) {
+			number++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#") || line.endsWith(":")) {
+				continue;
+			}
+			if (!catalog.addLine(line)) {
+				throw new IllegalArgumentException(String.format("Malformed API at line %d: %s", number, line));
+			}
+		}
+		return catalog;
+	}
+
+	/**
+	 * @param targetCalls APIs as the type name followed by the method name, e.g.
+	 *                    <code>TelephonyManager.getDeviceId</code>
+	 * @return the catalog of the APIs, without those that have no method name
+	 *         and so match no call
+	 */
+	public static ApiCatalog of(Collection<String> targetCalls) {
+		ApiCatalog catalog = new ApiCatalog();
+		for (String targetCall : targetCalls) {
+			catalog.addLine(targetCall);
+		}
+		return catalog;
+	}
+
+	private boolean addLine(String line) {
+		if (line.startsWith("<")) {
+			// <package.Type: returnType method(parameters)> ...
+			int colon = line.indexOf(':');
+			int parenthesis = line.indexOf('(', colon + 1);
+			if (colon < 0 || parenthesis < 0) {
+				return false;
+			}
+			String type = line.substring(1, colon);
+			String signature = line.substring(colon + 1, parenthesis).trim();
+			add(type.substring(Math.max(type.lastIndexOf('.'), type.lastIndexOf('$')) + 1),
+					signature.substring(signature.lastIndexOf(' ') + 1));
+			return true;
+		}
+		int dot = line.lastIndexOf('.');
+		if (dot <= 0 || dot == line.length() - 1) {
+			return false;
+		}
+		add(line.substring(0, dot), line.substring(dot + 1));
+		return true;
+	}
+
+	/**
+	 * Adds the method of the type.
+	 *
+	 * @param typeName   name of the type as given by its binding, i.e. its
+	 *                   simple name
+	 * @param methodName name of the method, or {@link #CONSTRUCTOR}
+	 */
+	public void add(String typeName, String methodName) {
+		typeName = typeName.intern();
+		Set<String> methods = methodsByType.get(typeName);
+		if (methods == null) {
+			methods = new HashSet<String>();
+			methodsByType.put(typeName, methods);
+		}
+		if (methods.add(methodName.intern())) {
+			size++;
+		}
+	}
+
+	/**
+	 * @param typeName   simple name of the type of the receiver
+	 * @param methodName name of the method, or {@link #CONSTRUCTOR}
+	 * @return whether the catalog has the method of the type
+	 */
+	public boolean contains(String typeName, String methodName) {
+		Set<String> methods = methodsByType.get(typeName);
+		return methods != null && methods.contains(methodName);
+	}
+
+	/**
+	 * @return whether the catalog has a method of the type
+	 */
+	public boolean containsType(String typeName) {
+		return methodsByType.containsKey(typeName);
+	}
+
+	/**
+	 * @return the simple names of the types with methods in the catalog
+	 */
+	public Set<String> getTypeNames() {
+		return Collections.unmodifiableSet(methodsByType.keySet());
+	}
+
+	/**
+	 * @return the number of methods in the catalog
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -5,60 +5,92 @@ import java.util.HashSet;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.ClassInstanceCreation;
 import org.eclipse.jdt.core.dom.IMethodBinding;
-import org.eclipse.jdt.core.dom.ITypeBinding;
-import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.QualifiedType;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.Type;
 
 public class ClassInstanceVisitor extends ASTVisitor{
 
 	private HashSet<String> targetCalls;
+	private ApiCatalog catalog;
 	private HashSet<MethodCallVO> calls;
 
 	public ClassInstanceVisitor(){
 		calls = new HashSet<MethodCallVO>();
 		targetCalls = new HashSet<>();
+		catalog = new ApiCatalog();
 	}
 	
  public boolean visit(ClassInstanceCreation call){
 		
-	
-		
-		IMethodBinding bind = null;		
 		String className = null;
 		
-		String methodName = "<init>";
+		String methodName = ApiCatalog.CONSTRUCTOR;
 		
-	
-		try{
-			if(call.getType() != null && call.getType().toString().equals("View.OnClickListener")){
-				className = "View";
-				methodName = "OnClickListener"; 
-				
-			}else{
-				bind = call.resolveConstructorBinding();
+		if(isOnClickListener(call.getType())){
+			className = "View";
+			methodName = "OnClickListener"; 
+		}else{
+			IMethodBinding bind = call.resolveConstructorBinding();
+			if(bind != null){
 				className = bind.getName();
 			}
-		}catch(Exception ex){
-			bind = null;
 		}
 		
-		StringBuilder targetCall = new StringBuilder();
-		
-		if(className != null ){
-			targetCall.append(className).append(".").append(methodName);
-			
-			if(targetCalls.contains(targetCall.toString())){
-				calls.add(new MethodCallVO(className, methodName, call.getStartPosition(), call.getLength()));
-			}
+		if(className != null && catalog.contains(className, methodName)){
+			calls.add(new MethodCallVO(className, methodName, call.getStartPosition(), call.getLength()));
 		}
 		return true;
 	}
 
+	/**
+	 * @return whether the type is written as <code>View.OnClickListener</code>
+	 */
+	private static boolean isOnClickListener(Type type){
+		if(type.isQualifiedType()){
+			QualifiedType qualifiedType = (QualifiedType) type;
+			return qualifiedType.getName().getIdentifier().equals("OnClickListener")
+					&& qualifiedType.getQualifier().isSimpleType()
+					&& isSimpleName(((SimpleType) qualifiedType.getQualifier()).getName(), "View");
+		}
+		if(!type.isSimpleType()){
+			return false;
+		}
+		Name name = ((SimpleType) type).getName();
+		if(!name.isQualifiedName()){
+			return false;
+		}
+		QualifiedName qualifiedName = (QualifiedName) name;
+		return qualifiedName.getName().getIdentifier().equals("OnClickListener")
+				&& isSimpleName(qualifiedName.getQualifier(), "View");
+	}
+
+	private static boolean isSimpleName(Name name, String identifier){
+		return name.isSimpleName() && ((SimpleName) name).getIdentifier().equals(identifier);
+	}
+
 	public HashSet<String> getTargetCalls() {
 		return targetCalls;
 	}
 
+	/**
+	 * @param targetCalls constructors to look for, as the type name followed by
+	 *                    <code>&lt;init&gt;</code>, e.g. <code>Intent.&lt;init&gt;</code>
+	 */
 	public void setTargetCalls(HashSet<String> targetCalls) {
 		this.targetCalls = targetCalls;
+		this.catalog = ApiCatalog.of(targetCalls);
+	}
+
+	public ApiCatalog getCatalog() {
+		return catalog;
+	}
+
+	public void setCatalog(ApiCatalog catalog) {
+		this.catalog = catalog;
 	}
 	
 	public HashSet<MethodCallVO> getCalls() {
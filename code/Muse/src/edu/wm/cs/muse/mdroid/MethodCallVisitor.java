@@ -5,6 +5,7 @@ package edu.wm.cs.muse.mdroid;
 import java.util.HashSet;
 
 import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.MethodInvocation;
 
@@ -12,48 +13,32 @@ public class MethodCallVisitor extends ASTVisitor{
 	
 
 	private HashSet<String> targetCalls;
+	private ApiCatalog catalog;
 	private HashSet<MethodCallVO> calls;
 
 	public MethodCallVisitor(){
 		calls = new HashSet<MethodCallVO>();
 		targetCalls = new HashSet<>();
+		catalog = new ApiCatalog();
 	}
 	
 	public boolean visit(MethodInvocation call){
 		
-	
-		
-		ITypeBinding bind = null;		
-		String className = null;
-		
-		String methodName = call.getName().getFullyQualifiedName();
-		
-		
-		try{
-			bind = ((MethodInvocation)call).getExpression().resolveTypeBinding();
-			className = bind.getName();
-		}catch(Exception ex){
-			bind = null;
+		Expression expression = call.getExpression();
+		ITypeBinding bind = expression == null ? null : expression.resolveTypeBinding();
+		if(bind == null){
+			// calls without a receiver, or whose receiver cannot be resolved
+			return true;
 		}
+		String className = bind.getName();
+		String methodName = call.getName().getIdentifier();
 		
-		StringBuilder targetCall = new StringBuilder();
-		
-		if(className != null ){
-			targetCall.append(className).append(".").append(methodName);
-			//For TESTING ONLY
-			//System.out.println("SC CALL: "+targetCall);
-			//for(String tc : targetCalls){
-			//	System.out.println("T CALL: "+tc);
-			//}
-			
-			if(targetCalls.contains(targetCall.toString())){
-				calls.add(new MethodCallVO(className, methodName, call.getStartPosition(), call.getLength()));
-			}
-			else if(targetCall.toString().contains("findViewById")){
-//				System.out.println(className +","+ methodName +","+ call.getStartPosition() +","+ call.getLength());
-//				System.exit(0);
-				calls.add(new MethodCallVO("Activity", methodName, call.getStartPosition(), call.getLength()));
-			}
+		if(catalog.contains(className, methodName)
+				|| (bind.isParameterizedType() && catalog.contains(bind.getErasure().getName(), methodName))){
+			calls.add(new MethodCallVO(className, methodName, call.getStartPosition(), call.getLength()));
+		}
+		else if(methodName.contains("findViewById") || className.contains("findViewById")){
+			calls.add(new MethodCallVO("Activity", methodName, call.getStartPosition(), call.getLength()));
 		}
 		return true;
 	}
@@ -66,8 +51,21 @@ public class MethodCallVisitor extends ASTVisitor{
 		return targetCalls;
 	}
 
+	/**
+	 * @param targetCalls calls to look for, as the type name followed by the
+	 *                    method name, e.g. <code>TelephonyManager.getDeviceId</code>
+	 */
 	public void setTargetCalls(HashSet<String> targetCalls) {
 		this.targetCalls = targetCalls;
+		this.catalog = ApiCatalog.of(targetCalls);
+	}
+
+	public ApiCatalog getCatalog() {
+		return catalog;
+	}
+
+	public void setCatalog(ApiCatalog catalog) {
+		this.catalog = catalog;
 	}
 	
 	
@@ -0,0 +1,121 @@
+package edu.wm.cs.muse.mdroid;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+
+/**
+ * Holds the classpath, source path and compiler options used to parse the
+ * compilation units of an app. Parsing without bindings, as Muse and Mutator
+ * do, only uses the compiler options. The classpath is listed from the binaries
+ * folder the first time bindings are resolved, and then shared by every parse.
+ * Each parse uses its own ASTParser, so the environment can be used from
+ * several threads.
+ */
+public class ParserEnvironment {
+
+	private final String binariesFolder;
+	private final String[] sourcePath;
+	private final Map<String, String> options;
+	private volatile String[] classPath;
+
+	/**
+	 * @param binariesFolder   folder containing the jars of libs4ast, may be null
+	 * @param sourceRootFolder root folder of the app's source code, may be null
+	 */
+	public ParserEnvironment(String binariesFolder, String sourceRootFolder) {
+		this.binariesFolder = binariesFolder;
+		sourcePath = sourceRootFolder == null ? new String[0] : new String[] { sourceRootFolder };
+
+		HashMap<String, String> compilerOptions = new HashMap<String, String>();
+		compilerOptions.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
+		compilerOptions.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
+		compilerOptions.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
+		compilerOptions.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
+		options = Collections.unmodifiableMap(compilerOptions);
+	}
+
+	/**
+	 * Creates the abstract syntax tree of the source. Without bindings the
+	 * classpath and source path are not loaded, and only the syntax of the source
+	 * is available.
+	 * 
+	 * @param source          contents of a compilation unit
+	 * @param resolveBindings whether to resolve bindings against this environment
+	 * @return the root of the tree
+	 */
+	public CompilationUnit parse(String source, boolean resolveBindings) {
+		ASTParser parser = newParser(resolveBindings);
+		parser.setSource(source.toCharArray());
+		return (CompilationUnit) parser.createAST(new NullProgressMonitor());
+	}
+
+	/**
+	 * Creates the abstract syntax trees of the source files in a single pass of
+	 * the parser, handing each tree to the requestor on the calling thread. The
+	 * files are read as they are, with the default charset. With bindings, the
+	 * classpath is loaded once and the bindings are shared by all the trees.
+	 * 
+	 * @param files           source files to parse
+	 * @param requestor       receives the tree of each file, with the absolute
+	 *                        path of the file
+	 * @param resolveBindings whether to resolve bindings against this environment
+	 */
+	public void parse(List<File> files, FileASTRequestor requestor, boolean resolveBindings) {
+		String[] sourceFilePaths = new String[files.size()];
+		for (int i = 0; i < sourceFilePaths.length; i++) {
+			sourceFilePaths[i] = files.get(i).getAbsolutePath();
+		}
+		newParser(resolveBindings).createASTs(sourceFilePaths, null, new String[0], requestor, new NullProgressMonitor());
+	}
+
+	private ASTParser newParser(boolean resolveBindings) {
+		ASTParser parser = ASTParser.newParser(AST.JLS8);
+		parser.setCompilerOptions(options);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		if (resolveBindings) {
+			parser.setEnvironment(getClassPath(), sourcePath, null, false);
+			parser.setResolveBindings(true);
+			parser.setBindingsRecovery(true);
+		}
+		return parser;
+	}
+
+	/**
+	 * @return the jars of the binaries folder, listed on first use
+	 */
+	public String[] getClassPath() {
+		String[] jarPaths = classPath;
+		if (jarPaths == null) {
+			if (binariesFolder == null) {
+				jarPaths = new String[0];
+			} else {
+				List<String> jars = ASTHelper.getJarsInfolder(binariesFolder);
+				jarPaths = new String[jars.size()];
+				for (int i = 0; i < jarPaths.length; i++) {
+					jarPaths[i] = binariesFolder + File.separator + jars.get(i);
+				}
+			}
+			// listing the folder again on another thread yields the same jars
+			classPath = jarPaths;
+		}
+		return jarPaths.clone();
+	}
+
+	public String[] getSourcePath() {
+		return sourcePath.clone();
+	}
+
+	public Map<String, String> getOptions() {
+		return options;
+	}
+}
@@ -12,20 +12,23 @@ import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
 import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
 
 import edu.wm.cs.muse.dataleak.DataLeak;
-import edu.wm.cs.muse.dataleak.support.Utility;
+import edu.wm.cs.muse.dataleak.support.InsertionPointAnalysis;
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
 
 public class ReachabilityVisitor extends ASTVisitor{
 	
 	ASTRewrite rewriter;
-	public ReachabilityVisitor(ASTRewrite rewriter) {
+	LeakIdRange leakIds;
+	public ReachabilityVisitor(ASTRewrite rewriter, LeakIdRange leakIds) {
 		this.rewriter = rewriter;
+		this.leakIds = leakIds;
 	}
 	
 	protected void insertion(ASTNode node, int index, ChildListPropertyDescriptor nodeProperty) {
 		// Creates and returns a new rewriter for describing modifications to the given list property of the given node.
 		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
-		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(DataLeak.getLeak(Utility.COUNTER_GLOBAL), ASTNode.EMPTY_STATEMENT);
-		Utility.COUNTER_GLOBAL++;
+		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(DataLeak.getLeak(leakIds.getAndIncrement()), ASTNode.EMPTY_STATEMENT);
 		listRewrite.insertAt(placeHolder, index, null);
 	}
 
@@ -36,7 +39,7 @@ public class ReachabilityVisitor extends ASTVisitor{
 			return false;
 		}
 		String loc = node.getName().toString() + ".<init>";
-		System.out.println(String.format("leak-%d: <%s>", Utility.COUNTER_GLOBAL, loc));
+		DataLeak.report(new Leak(leakIds.current(), Leak.NONE, "<" + loc + ">"));
 		insertion(node, 0, TypeDeclaration.BODY_DECLARATIONS_PROPERTY);
 		return true;
 	}
@@ -45,19 +48,14 @@ public class ReachabilityVisitor extends ASTVisitor{
 	public boolean visit(AnonymousClassDeclaration node) {
 		// Anonymous classes
 		String loc = "1.<init>";
-		System.out.println(String.format("leak-%d: <%s>", Utility.COUNTER_GLOBAL, loc));
+		DataLeak.report(new Leak(leakIds.current(), Leak.NONE, "<" + loc + ">"));
 		insertion(node, 0, AnonymousClassDeclaration.BODY_DECLARATIONS_PROPERTY);
 		return true;
 	}
 
 	public boolean visit(Block node) {
 		// Blocks
-		int index = 0;
-		for (Object obj : node.statements()) {
-			if (obj.toString().startsWith("super") || obj.toString().startsWith("this(")) {
-				index = 1;
-			}
-		}
+		int index = InsertionPointAnalysis.of(node).countSuperOrThisCalls() > 0 ? 1 : 0;
 		String className = "";
 		String methodName = "<init>";
 		ASTNode trace = node.getParent();
@@ -74,7 +72,7 @@ public class ReachabilityVisitor extends ASTVisitor{
 			trace = trace.getParent();
 		}
 		String loc = className + "." + methodName;
-		System.out.println(String.format("leak-%d: %s", Utility.COUNTER_GLOBAL, loc));
+		DataLeak.report(new Leak(leakIds.current(), Leak.NONE, loc));
 		insertion(node, index, Block.STATEMENTS_PROPERTY);
 		return true;
 	}
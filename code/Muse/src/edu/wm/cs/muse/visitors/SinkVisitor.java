@@ -1,14 +1,11 @@
 package edu.wm.cs.muse.visitors;
 
 import java.util.HashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
 import org.eclipse.jdt.core.dom.Block;
-import org.eclipse.jdt.core.dom.BodyDeclaration;
 import org.eclipse.jdt.core.dom.ChildListPropertyDescriptor;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
@@ -18,16 +15,22 @@ import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
 import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
 
-import edu.wm.cs.muse.dataleak.support.Utility;
+import edu.wm.cs.muse.dataleak.DataLeak;
+import edu.wm.cs.muse.dataleak.support.InsertionPointAnalysis;
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.LeakFieldIndex;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
 
 public class SinkVisitor extends ASTVisitor {
 	ASTRewrite rewriter;
+	LeakIdRange leakIds;
 
-	public SinkVisitor(ASTRewrite rewriter) {
+	public SinkVisitor(ASTRewrite rewriter, LeakIdRange leakIds) {
 		this.rewriter = rewriter;
+		this.leakIds = leakIds;
 	}
 
-	Pattern variablePattern = Pattern.compile("(.*String dataLeAk)(\\d+).*"); // the pattern to search for
 	HashMap<Integer, Integer> repeatCounts = new HashMap<Integer, Integer>();
 
 	private void insertSink(ASTNode node, int index, int count, ChildListPropertyDescriptor nodeProperty,
@@ -35,8 +38,7 @@ public class SinkVisitor extends ASTVisitor {
 		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
 		int cur = repeatCounts.containsKey(count) ? repeatCounts.get(count) : -1;
 		repeatCounts.put(count, cur + 1);
-		String sink = String.format("android.util.Log.d(\"leak-%d-%d\", dataLeAk%d);", count, repeatCounts.get(count),
-				count);
+		String sink = DataLeak.getSink(OperatorType.SINK, count, repeatCounts.get(count));
 		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(sink, ASTNode.EMPTY_STATEMENT);
 		listRewrite.insertAt(placeHolder, index, null);
 		String methodName = ((MethodDeclaration) method).getName().toString();
@@ -52,14 +54,12 @@ public class SinkVisitor extends ASTVisitor {
 			}
 			method = method.getParent();
 		}
-		System.out.println(String.format("leak-%d-%d: %s.%s", count, repeatCounts.get(count), className, methodName));
+		DataLeak.report(new Leak(count, repeatCounts.get(count), className + "." + methodName));
 	}
 
 	private void insertSource(ASTNode node, int index, ChildListPropertyDescriptor nodeProperty) {
 		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
-		String source = String.format(
-				"final String dataLeAk%d = java.util.Calendar.getInstance().getTimeZone().getDisplayName();",
-				Utility.COUNTER_GLOBAL);
+		String source = DataLeak.getSource(OperatorType.SINK, leakIds.current());
 		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(source, ASTNode.EMPTY_STATEMENT);
 		listRewrite.insertAt(placeHolder, index, null);
 	}
@@ -67,18 +67,13 @@ public class SinkVisitor extends ASTVisitor {
 	@Override
 	public boolean visit(MethodDeclaration method) {
 		// Methods
-		int count = 0;
-		int index = 0;
+		int leakId;
 		Block node = method.getBody();
 		if (node == null) {
 			return true;
 		}
-		for (Object obj : node.statements()) {
-			if (obj.toString().startsWith("super") || obj.toString().startsWith("this(")
-					|| obj.toString().startsWith("dataLeAk")) {
-				index++;
-			}
-		}
+		int index = InsertionPointAnalysis.of(node).countSuperOrThisCallsAndLeaks();
+		LeakFieldIndex leakFields = LeakFieldIndex.of(method);
 
 		ASTNode n = node.getParent();
 		boolean inAnonymousClass = false;
@@ -98,14 +93,8 @@ public class SinkVisitor extends ASTVisitor {
 				}
 				break;
 			case ASTNode.TYPE_DECLARATION:
-				for (Object field : ((TypeDeclaration) n).bodyDeclarations()) {
-					if (((BodyDeclaration) field).getNodeType() == ASTNode.FIELD_DECLARATION) {
-						Matcher matcher = variablePattern.matcher(field.toString());
-						if (matcher.find() && field.toString().trim().startsWith("String dataLeAk")) {
-							count = Integer.valueOf(matcher.group(2));
-							insertSink(node, index, count, Block.STATEMENTS_PROPERTY, method);
-						}
-					}
+				for (int count : leakFields.getLeakIds(n)) {
+					insertSink(node, index, count, Block.STATEMENTS_PROPERTY, method);
 				}
 				try {
 					inStaticContext = Modifier.isStatic(((TypeDeclaration) n).getModifiers());
@@ -113,14 +102,8 @@ public class SinkVisitor extends ASTVisitor {
 				}
 				break;
 			case ASTNode.ANONYMOUS_CLASS_DECLARATION:
-				for (Object field : ((AnonymousClassDeclaration) n).bodyDeclarations()) {
-					if (((BodyDeclaration) field).getNodeType() == ASTNode.FIELD_DECLARATION) {
-						Matcher matcher = variablePattern.matcher(field.toString());
-						if (matcher.find() && field.toString().trim().startsWith("String dataLeAk")) {
-							count = Integer.valueOf(matcher.group(2));
-							insertSink(node, index, count, Block.STATEMENTS_PROPERTY, method);
-						}
-					}
+				for (int count : leakFields.getLeakIds(n)) {
+					insertSink(node, index, count, Block.STATEMENTS_PROPERTY, method);
 				}
 				inAnonymousClass = true;
 				break;
@@ -146,18 +129,18 @@ public class SinkVisitor extends ASTVisitor {
 				break;
 
 			case ASTNode.TYPE_DECLARATION:
-				Utility.COUNTER_GLOBAL++;
+				leakId = leakIds.incrementAndGet();
 				insertSource(n, 0, TypeDeclaration.BODY_DECLARATIONS_PROPERTY);
-				insertSink(node, index, Utility.COUNTER_GLOBAL, Block.STATEMENTS_PROPERTY, method);
+				insertSink(node, index, leakId, Block.STATEMENTS_PROPERTY, method);
 				try {
 					inStaticContext = Modifier.isStatic(((TypeDeclaration) n).getModifiers());
 				} catch (NullPointerException e) {
 				}
 				break;
 			case ASTNode.ANONYMOUS_CLASS_DECLARATION:
-				Utility.COUNTER_GLOBAL++;
+				leakId = leakIds.incrementAndGet();
 				insertSource(n, 0, AnonymousClassDeclaration.BODY_DECLARATIONS_PROPERTY);
-				insertSink(node, index, Utility.COUNTER_GLOBAL, Block.STATEMENTS_PROPERTY, method);
+				insertSink(node, index, leakId, Block.STATEMENTS_PROPERTY, method);
 				break;
 			}
 			n = n.getParent();
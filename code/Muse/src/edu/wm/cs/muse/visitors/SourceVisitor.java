@@ -12,27 +12,30 @@ import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
 import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
 
-import edu.wm.cs.muse.dataleak.support.Utility;
+import edu.wm.cs.muse.dataleak.DataLeak;
+import edu.wm.cs.muse.dataleak.support.InsertionPointAnalysis;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
 
 class SourceVisitor extends ASTVisitor {
 	ASTRewrite rewriter;
+	LeakIdRange leakIds;
 
-	public SourceVisitor(ASTRewrite rewriter) {
+	public SourceVisitor(ASTRewrite rewriter, LeakIdRange leakIds) {
 		this.rewriter = rewriter;
+		this.leakIds = leakIds;
 	}
 
 	protected void insertion(ASTNode node, int index, ChildListPropertyDescriptor nodeProperty) {
 		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
-		String source = String.format("dataLeAk%d = java.util.Calendar.getInstance().getTimeZone().getDisplayName();",
-				Utility.COUNTER_GLOBAL);
-		Utility.COUNTER_GLOBAL++;
+		String source = DataLeak.getSource(OperatorType.SOURCE, leakIds.getAndIncrement());
 		Statement placeHolder = (Statement) rewriter.createStringPlaceholder(source, ASTNode.EMPTY_STATEMENT);
 		listRewrite.insertAt(placeHolder, index, null);
 	}
 
 	private void insertVariable(ASTNode node, int index, ChildListPropertyDescriptor nodeProperty) {
 		ListRewrite listRewrite = rewriter.getListRewrite(node, nodeProperty);
-		String variable = String.format("String dataLeAk%d = \"\";", Utility.COUNTER_GLOBAL);
+		String variable = DataLeak.getDeclaration(OperatorType.SOURCE, leakIds.current());
 		Statement placeHolder = (Statement)rewriter.createStringPlaceholder(variable, ASTNode.EMPTY_STATEMENT);
 		listRewrite.insertAt(placeHolder, index, null);
 	}
@@ -43,12 +46,7 @@ class SourceVisitor extends ASTVisitor {
 		if (node == null) {
 			return true;
 		}
-		int index = 0;
-		for (Object obj : node.statements()) {
-			if (obj.toString().startsWith("super") || obj.toString().startsWith("this(")) {
-				index++;
-			}
-		}
+		int index = InsertionPointAnalysis.of(node).countSuperOrThisCalls();
 		ASTNode n = node.getParent();
 		boolean inAnonymousClass = false;
 		boolean inStaticContext = false;
@@ -0,0 +1,127 @@
+package log;
+
+import java.util.Arrays;
+
+/**
+ * A set of ints in a single open addressing table, without boxing. Used for
+ * the leak identifiers found in runtime logs, which may be many.
+ */
+public class IntHashSet {
+
+	private static final int FREE = 0;
+
+	private int[] table;
+	private int size;
+	// FREE marks the free slots of the table, so it is kept aside
+	private boolean containsFree;
+
+	public IntHashSet() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize number of values the set holds without growing
+	 */
+	public IntHashSet(int expectedSize) {
+		int capacity = 4;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		table = new int[capacity];
+	}
+
+	/**
+	 * @return true if the value was not in the set
+	 */
+	public boolean add(int value) {
+		if (value == FREE) {
+			if (containsFree) {
+				return false;
+			}
+			containsFree = true;
+			size++;
+			return true;
+		}
+		int mask = table.length - 1;
+		int slot = hash(value) & mask;
+		while (table[slot] != FREE) {
+			if (table[slot] == value) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = value;
+		size++;
+		if (size * 2 > table.length) {
+			grow();
+		}
+		return true;
+	}
+
+	public boolean contains(int value) {
+		if (value == FREE) {
+			return containsFree;
+		}
+		int mask = table.length - 1;
+		int slot = hash(value) & mask;
+		while (table[slot] != FREE) {
+			if (table[slot] == value) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the values of the set, in ascending order
+	 */
+	public int[] toArray() {
+		int[] values = new int[size];
+		int i = 0;
+		if (containsFree) {
+			values[i++] = FREE;
+		}
+		for (int value : table) {
+			if (value != FREE) {
+				values[i++] = value;
+			}
+		}
+		Arrays.sort(values);
+		return values;
+	}
+
+	private void grow() {
+		int[] old = table;
+		table = new int[old.length * 2];
+		int mask = table.length - 1;
+		for (int value : old) {
+			if (value != FREE) {
+				int slot = hash(value) & mask;
+				while (table[slot] != FREE) {
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = value;
+			}
+		}
+	}
+
+	private static int hash(int value) {
+		// spreads consecutive identifiers over the table
+		int h = value * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+}
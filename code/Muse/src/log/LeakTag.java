@@ -0,0 +1,104 @@
+package log;
+
+/**
+ * Reads the identifiers of a leak tag, such as <code>leak-12:</code> in a
+ * runtime log, <code>"leak-12-3"</code> in a sink or
+ * <code>dataLeAk12 =</code> in a declaration. A tag is a prefix followed by
+ * the identifier of the source and, optionally, a dash and the identifier of
+ * the sink, up to a terminator. Anything after a second dash is ignored.
+ * 
+ * A tag is reused for every line, so scanning allocates nothing.
+ */
+class LeakTag {
+
+	static final String LEAK_PREFIX = "leak-";
+	static final String DECLARATION_PREFIX = "dataLeAk";
+	static final int NONE = -1;
+
+	private int source = NONE;
+	private int sink = NONE;
+
+	/**
+	 * Reads the tag that starts at the first occurrence of the prefix in the line.
+	 * The tag ends at the first terminator after the prefix, the next
+	 * occurrence of the prefix, or the end of the line.
+	 * 
+	 * @return false if the line has no prefix or the identifiers of the tag are
+	 *         not numbers
+	 */
+	boolean parse(String line, String prefix, String terminator) {
+		source = NONE;
+		sink = NONE;
+		int start = line.indexOf(prefix);
+		if (start < 0) {
+			return false;
+		}
+		start += prefix.length();
+		int end = line.length();
+		int terminatorStart = line.indexOf(terminator, start);
+		if (terminatorStart >= 0) {
+			end = terminatorStart;
+		}
+		int next = line.indexOf(prefix, start);
+		if (next >= 0 && next < end) {
+			end = next;
+		}
+
+		int dash = indexOf(line, '-', start, end);
+		source = parseNumber(line, start, dash < 0 ? end : dash);
+		if (source == NONE) {
+			return false;
+		}
+		if (dash >= 0) {
+			int secondDash = indexOf(line, '-', dash + 1, end);
+			sink = parseNumber(line, dash + 1, secondDash < 0 ? end : secondDash);
+			if (sink == NONE) {
+				source = NONE;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	int getSource() {
+		return source;
+	}
+
+	int getSink() {
+		return sink;
+	}
+
+	boolean hasSink() {
+		return sink != NONE;
+	}
+
+	private static int indexOf(String line, char c, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (line.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the non-negative int between the positions, or {@link #NONE}
+	 */
+	private static int parseNumber(String line, int start, int end) {
+		if (start >= end) {
+			return NONE;
+		}
+		long number = 0;
+		for (int i = start; i < end; i++) {
+			char c = line.charAt(i);
+			if (c < '0' || c > '9') {
+				return NONE;
+			}
+			number = number * 10 + (c - '0');
+			if (number > Integer.MAX_VALUE) {
+				return NONE;
+			}
+		}
+		return (int) number;
+	}
+}
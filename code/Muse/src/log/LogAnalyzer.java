@@ -1,16 +1,16 @@
 package log;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.apache.commons.io.FileUtils;
-import org.eclipse.jface.text.Document;
-
-import edu.wm.cs.muse.dataleak.support.FileUtility;
-
 /**
  * Log Analyzer helps to detect and prepare Source files only containing true
  * positives
@@ -19,64 +19,48 @@ import edu.wm.cs.muse.dataleak.support.FileUtility;
  *
  */
 public class LogAnalyzer {
-	//RuntimeLogs.txt
-	static String testString;
-	//ModifiedFile.txt
-	static String sourceString;
 
 	/**
 	 * Iterates through the modified file directory and compares the occurrence of
 	 * "dataLeak" in the file and the runtime log to remove false positive data leaks.
 	 * Then alters the files in mutants folder with the respective changes.
+	 * The log is read line by line, and the modified files are filtered on
+	 * several threads and matched with the mutated files at any depth.
 	 * @param args
 	 * @throws IOException
 	 * @author Yang Zhang
 	 */
 	public void runLogAnalysis(String[] args) throws FileNotFoundException, IOException {
 		// Incomplete arguments
-		if (args.length != 3) {
+		if (args.length != 3 && args.length != 4) {
 			printArgumentError();
 			return;
 		}
-		
-		testString = FileUtility.readSourceFile(args[0].toString()).toString();
-		//modified files directory
-		File mod_file_path = new File(args[1].toString());
-		File [] mod_files = mod_file_path.listFiles();
-		
-		//mutant folder directory
-		File mutant_file_path = new File(args[2].toString());
-		File [] mutated_files = mutant_file_path.listFiles();
-
-		for (File mod_file : mod_files) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (args.length == 4) {
 			try {
-				if (mod_file.getName().endsWith(".txt")) {
-					sourceString = FileUtility.readSourceFile(mod_file.getAbsolutePath()).toString();
-					LogAnalyzer log = new LogAnalyzer();
-					String new_analyzed_file = log.removeUnusedIndicesFromSource(LogAnalyzer.sourceString,
-							log.getIndicesFromLogs(LogAnalyzer.testString));
-					System.out.println(new_analyzed_file);
-					
-					//traverse mutants folder to replace the existing modified code
-					//the mutant folder filepath should link straight to the directory 
-					//containing the mutated files being analyzed.
-					String originalName = mod_file.getName().replaceAll(".txt", ".java");
-					for (File mutated_file : mutated_files) {
-						if (mutated_file.getName().equals(originalName) == true) 
-						{
-							Document sourceDoc = new Document(new_analyzed_file);
-							FileUtils.writeStringToFile(mutated_file, sourceDoc.get(), false);
-						}
-					}
-				}
-
-			} catch (IOException e) {
-				System.err.println(String.format("ERROR PROCESSING \"%s\": %s", mod_file.getAbsolutePath(), e.getMessage()));
+				threads = Integer.parseInt(args[3]);
+			} catch (NumberFormatException e) {
+				threads = 0;
+			}
+			if (threads <= 0) {
+				printArgumentError();
 				return;
 			}
 		}
+
+		final IntHashSet indices = readIndicesFromLogs(new File(args[0]));
+		SourceFilter filter = new SourceFilter() {
+			@Override
+			public void filter(BufferedReader source, Writer out) throws IOException {
+				removeUnusedIndicesFromSource(source, indices, out);
+			}
+		};
+		//modified files directory, and mutant folder directory, whose files may be
+		//at any depth below it
+		new MutantUpdater(filter, threads).update(new File(args[1]), new File(args[2]));
 	}
-	
+
 	/**
 	 * Extracts indices of true positive data leaks
 	 * 
@@ -87,10 +71,49 @@ public class LogAnalyzer {
 	 */
 	public Set<Integer> getIndicesFromLogs(String string) {
 		Set<Integer> indices = new HashSet<Integer>();
-		String[] lines = string.split("\n");
-		for (String line : lines) {
-			if (line.contains("leak-")) {
-				indices.add(Integer.parseInt(line.split("leak-")[1].split(":")[0]));
+		try {
+			for (int index : readIndicesFromLogs(new BufferedReader(new StringReader(string))).toArray()) {
+				indices.add(index);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return indices;
+	}
+
+	/**
+	 * Extracts the indices of true positive data leaks from a log file, reading
+	 * it line by line.
+	 * 
+	 * @param logFile runtime logs, e.g. a logcat dump
+	 * @return indices of the leaks in the logs
+	 * @throws IOException if the file cannot be read
+	 */
+	public IntHashSet readIndicesFromLogs(File logFile) throws IOException {
+		BufferedReader logs = new BufferedReader(new FileReader(logFile));
+		try {
+			return readIndicesFromLogs(logs);
+		} finally {
+			logs.close();
+		}
+	}
+
+	/**
+	 * Extracts the indices of true positive data leaks, from the tags
+	 * <code>leak-INDEX:</code> of the log lines. Lines whose tag has no index, or
+	 * also has a sink, are skipped.
+	 * 
+	 * @param logs runtime logs
+	 * @return indices of the leaks in the logs
+	 * @throws IOException if the logs cannot be read
+	 */
+	public IntHashSet readIndicesFromLogs(BufferedReader logs) throws IOException {
+		IntHashSet indices = new IntHashSet();
+		LeakTag tag = new LeakTag();
+		String line;
+		while ((line = logs.readLine()) != null) {
+			if (tag.parse(line, LeakTag.LEAK_PREFIX, ":") && !tag.hasSink()) {
+				indices.add(tag.getSource());
 			}
 		}
 		return indices;
@@ -104,34 +127,75 @@ public class LogAnalyzer {
 	 * @author Amit Seal Ami
 	 */
 	public String removeUnusedIndicesFromSource(String string, Set<Integer> indicesFromLog) {
-		String[] lines = string.split("\n");
-		String outputLines = "";
+		IntHashSet indices = new IntHashSet(indicesFromLog.size());
+		for (int index : indicesFromLog) {
+			indices.add(index);
+		}
+		StringWriter out = new StringWriter(string.length());
+		try {
+			removeUnusedIndicesFromSource(new BufferedReader(new StringReader(string)), indices, out);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Copies the source without the leaks that are not in the logs, in a single
+	 * pass. The declaration <code>String dataLeAkINDEX = ...</code> of each
+	 * missing leak is left out, together with the throwaway sink that follows
+	 * it. Each line is written with a trailing new line, and the empty lines at
+	 * the end of the source are left out.
+	 * 
+	 * @param source         the source, read line by line
+	 * @param indicesFromLog extracted indices of dataleaks from log file
+	 * @param out            receives the source with only the true positives
+	 * @throws IOException if the source cannot be read or written
+	 */
+	public void removeUnusedIndicesFromSource(BufferedReader source, IntHashSet indicesFromLog, Writer out)
+			throws IOException {
 		boolean addThrowAwayLine = false;
-		for (String line : lines) {
+		LeakTag tag = new LeakTag();
+		int lines = 0;
+		int emptyLines = 0;
+		String line;
+		while ((line = source.readLine()) != null) {
+			lines++;
+			if (line.isEmpty()) {
+				emptyLines++;
+				continue;
+			}
+			for (; emptyLines > 0; emptyLines--) {
+				out.write('\n');
+			}
 			if (line.contains("String dataLeAk")) {
-				int index = Integer.parseInt(line.split("dataLeAk")[1].split(" =")[0]);
-				if (indicesFromLog.contains(index)) {
-					outputLines += line + "\n";
-					addThrowAwayLine = true;
+				if (tag.parse(line, LeakTag.DECLARATION_PREFIX, " =") && !tag.hasSink()
+						&& !indicesFromLog.contains(tag.getSource())) {
+					continue;
 				}
+				addThrowAwayLine = true;
 			} else if (line.contains("Object throwawayLeAk")) {
-				if (addThrowAwayLine) {
-					outputLines += line + "\n";
-					addThrowAwayLine = false;
+				if (!addThrowAwayLine) {
+					continue;
 				}
-			} else {
-				outputLines += line += "\n";
+				addThrowAwayLine = false;
 			}
+			out.write(line);
+			out.write('\n');
+		}
+		if (lines == 0) {
+			// an empty source is a single empty line
+			out.write('\n');
 		}
-		return outputLines;
 	}
-	
+
 	private void printArgumentError() {
 		System.out.println("******* ERROR: INCORRECT USAGE *******");
 		System.out.println("Argument List:");
 		System.out.println("1. Runtime Logs File");
 		System.out.println("2. Modified Files Directory");
 		System.out.println("3. Mutants path");
+		System.out.println("4. Number of threads (optional, default: number of processors)");
 	}
 
 	public static void main(String[] args) throws IOException {
@@ -1,17 +1,17 @@
 package log;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.io.FileUtils;
-import org.eclipse.jface.text.Document;
-
-import edu.wm.cs.muse.dataleak.support.FileUtility;
-
 /**
  * TaintSink log analyzer requires two string contents. Log and Source.
  * Based on the log file, it removes the unused log sinks and only keeps the true positive logs.
@@ -19,58 +19,45 @@ import edu.wm.cs.muse.dataleak.support.FileUtility;
  * 
  */
 public class LogAnalyzer_TaintSink {
-	//RuntimeLogs.txt
-	static String testString;
-	//ModifiedFile.txt
-	static String sourceString;
 	
 	/**
 	 * Iterates through the modified file directory to remove false positive data leaks.
 	 * Then alters the files in mutants folder with the respective changes.
+	 * The log is read line by line, and the modified files are filtered on
+	 * several threads and matched with the mutated files at any depth.
 	 * @param args
 	 * @throws IOException
 	 * @author Yang Zhang
 	 */
 	public void runLogAnalysis(String[] args) throws Exception {
 		// Incomplete arguments
-		if (args.length != 3) {
+		if (args.length != 3 && args.length != 4) {
 			printArgumentError();
 			return;
 		}
-		testString = FileUtility.readSourceFile(args[0].toString()).toString();
-		//modified files directory
-		File mod_file_path = new File(args[1].toString());
-		File [] mod_files = mod_file_path.listFiles();
-		
-		//mutant folder directory
-		File mutant_file_path = new File(args[2].toString());
-		File [] mutated_files = mutant_file_path.listFiles();
-
-		for (File mod_file : mod_files) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (args.length == 4) {
 			try {
-				if (mod_file.getName().endsWith(".txt")) {
-					sourceString = FileUtility.readSourceFile(mod_file.getAbsolutePath()).toString();
-					String new_analyzed_file = analyzeSourceString(sourceString, getLogMaps(testString));
-					System.out.println(new_analyzed_file);
-					
-					//traverse mutants folder to replace the existing modified code
-					//the mutant folder filepath should link straight to the directory 
-					//containing the mutated files being analyzed.
-					String originalName = mod_file.getName().replaceAll(".txt", ".java");
-					for (File mutated_file : mutated_files) {
-						if (mutated_file.getName().equals(originalName) == true) 
-						{
-							Document sourceDoc = new Document(new_analyzed_file);
-							FileUtils.writeStringToFile(mutated_file, sourceDoc.get(), false);
-						}
-					}
-				}
-
-			} catch (IOException e) {
-				System.err.println(String.format("ERROR PROCESSING \"%s\": %s", mod_file.getAbsolutePath(), e.getMessage()));
+				threads = Integer.parseInt(args[3]);
+			} catch (NumberFormatException e) {
+				threads = 0;
+			}
+			if (threads <= 0) {
+				printArgumentError();
 				return;
 			}
 		}
+
+		final LongHashSet pairs = readLeakPairs(new File(args[0]));
+		SourceFilter filter = new SourceFilter() {
+			@Override
+			public void filter(BufferedReader source, Writer out) throws IOException {
+				removeUnobservedSinks(source, pairs, out);
+			}
+		};
+		//modified files directory, and mutant folder directory, whose files may be
+		//at any depth below it
+		new MutantUpdater(filter, threads).update(new File(args[1]), new File(args[2]));
 	}
 
 	/**
@@ -85,27 +72,48 @@ public class LogAnalyzer_TaintSink {
 		if(string.length()<10) {
 			throw new Exception("Give me proper source string; separated by new lines.");
 		}
-		String[] lines = string.split("\n");
-		String outputLines = "";
-
-		for (String line : lines) {
-
-			if (line.contains("leak-")) {
-
-				String[] source_sink = line.split("leak-")[1].split("\"")[0].split("-");
-				Integer source = Integer.parseInt(source_sink[0]);
-				Integer sink = Integer.parseInt(source_sink[1]);
-				if (!maps.get(source).contains(sink)) {
-					continue;
-				}else {
-					outputLines += line + "\n";
-				}
-			} else {
-				outputLines += line + "\n";
+		LongHashSet pairs = new LongHashSet();
+		for (Map.Entry<Integer, Set<Integer>> entry : maps.entrySet()) {
+			for (int sink : entry.getValue()) {
+				pairs.add(LongHashSet.pack(entry.getKey(), sink));
 			}
 		}
+		StringWriter out = new StringWriter(string.length());
+		removeUnobservedSinks(new BufferedReader(new StringReader(string)), pairs, out);
+		return out.toString();
+	}
 
-		return outputLines;
+	/**
+	 * Copies the source without the sinks <code>"leak-SOURCE-SINK"</code> whose
+	 * pair is not in the logs, including those of sources that never appear in
+	 * them. Each line is written with a trailing new line, and the empty lines at
+	 * the end of the source are left out.
+	 * 
+	 * @param source the source, read line by line
+	 * @param pairs  pairs of source and sink found in the logs
+	 * @param out    receives the source with only the true positives
+	 * @throws IOException if the source cannot be read or written
+	 */
+	public static void removeUnobservedSinks(BufferedReader source, LongHashSet pairs, Writer out)
+			throws IOException {
+		LeakTag tag = new LeakTag();
+		int emptyLines = 0;
+		String line;
+		while ((line = source.readLine()) != null) {
+			if (line.isEmpty()) {
+				emptyLines++;
+				continue;
+			}
+			for (; emptyLines > 0; emptyLines--) {
+				out.write('\n');
+			}
+			if (tag.parse(line, LeakTag.LEAK_PREFIX, "\"") && tag.hasSink()
+					&& !pairs.contains(LongHashSet.pack(tag.getSource(), tag.getSink()))) {
+				continue;
+			}
+			out.write(line);
+			out.write('\n');
+		}
 	}
 
 	/**
@@ -115,25 +123,55 @@ public class LogAnalyzer_TaintSink {
 	 * @author Amit Seal Ami
 	 */
 	public static Map<Integer, Set<Integer>> getLogMaps(String allLogs) {
-		String[] lines = allLogs.split("\n");
-
 		Map<Integer, Set<Integer>> maps = new HashMap<Integer, Set<Integer>>();
-		for (String line : lines) {
-			if (line.contains("leak-")) {
-				String[] source_sink = line.split("leak-")[1].split(":")[0].split("-");
-				Integer source = Integer.parseInt(source_sink[0]);
-				Integer sink = Integer.parseInt(source_sink[1]);
+		try {
+			for (long pair : readLeakPairs(new BufferedReader(new StringReader(allLogs))).toArray()) {
+				int source = (int) (pair >>> 32);
 				if (!maps.containsKey(source)) {
 					maps.put(source, new HashSet<Integer>());
 				}
-				Set<Integer> values = maps.get(source);
-				values.add(sink);
-				maps.put(source, values);
+				maps.get(source).add((int) pair);
 			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
 		}
-//		System.out.println(maps);
 		return maps;
 	}
+
+	/**
+	 * Reads the pairs of source and sink of a log file line by line.
+	 * 
+	 * @see #readLeakPairs(BufferedReader)
+	 */
+	public static LongHashSet readLeakPairs(File logFile) throws IOException {
+		BufferedReader logs = new BufferedReader(new FileReader(logFile));
+		try {
+			return readLeakPairs(logs);
+		} finally {
+			logs.close();
+		}
+	}
+
+	/**
+	 * Extracts the pairs of source and sink from the tags
+	 * <code>leak-SOURCE-SINK:</code> of the log lines. Lines whose tag has no
+	 * sink are skipped.
+	 * 
+	 * @param logs runtime logs
+	 * @return the pairs, packed by {@link LongHashSet#pack(int, int)}
+	 * @throws IOException if the logs cannot be read
+	 */
+	public static LongHashSet readLeakPairs(BufferedReader logs) throws IOException {
+		LongHashSet pairs = new LongHashSet();
+		LeakTag tag = new LeakTag();
+		String line;
+		while ((line = logs.readLine()) != null) {
+			if (tag.parse(line, LeakTag.LEAK_PREFIX, ":") && tag.hasSink()) {
+				pairs.add(LongHashSet.pack(tag.getSource(), tag.getSink()));
+			}
+		}
+		return pairs;
+	}
 	
 	private void printArgumentError() {
 		System.out.println("******* ERROR: INCORRECT USAGE *******");
@@ -141,6 +179,7 @@ public class LogAnalyzer_TaintSink {
 		System.out.println("1. Runtime Logs File");
 		System.out.println("2. Modified Files Directory");
 		System.out.println("3. Mutants path");
+		System.out.println("4. Number of threads (optional, default: number of processors)");
 	}
 
 	public static void main(String[] args) throws Exception {
@@ -0,0 +1,135 @@
+package log;
+
+import java.util.Arrays;
+
+/**
+ * A set of longs in a single open addressing table, without boxing. Used for
+ * the pairs of source and sink identifiers found in runtime logs, packed into
+ * one long by {@link #pack(int, int)}.
+ */
+public class LongHashSet {
+
+	private static final long FREE = 0;
+
+	private long[] table;
+	private int size;
+	// FREE marks the free slots of the table, so it is kept aside
+	private boolean containsFree;
+
+	public LongHashSet() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize number of values the set holds without growing
+	 */
+	public LongHashSet(int expectedSize) {
+		int capacity = 4;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		table = new long[capacity];
+	}
+
+	/**
+	 * @return true if the value was not in the set
+	 */
+	public boolean add(long value) {
+		if (value == FREE) {
+			if (containsFree) {
+				return false;
+			}
+			containsFree = true;
+			size++;
+			return true;
+		}
+		int mask = table.length - 1;
+		int slot = hash(value) & mask;
+		while (table[slot] != FREE) {
+			if (table[slot] == value) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = value;
+		size++;
+		if (size * 2 > table.length) {
+			grow();
+		}
+		return true;
+	}
+
+	public boolean contains(long value) {
+		if (value == FREE) {
+			return containsFree;
+		}
+		int mask = table.length - 1;
+		int slot = hash(value) & mask;
+		while (table[slot] != FREE) {
+			if (table[slot] == value) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the values of the set, in ascending order
+	 */
+	public long[] toArray() {
+		long[] values = new long[size];
+		int i = 0;
+		if (containsFree) {
+			values[i++] = FREE;
+		}
+		for (long value : table) {
+			if (value != FREE) {
+				values[i++] = value;
+			}
+		}
+		Arrays.sort(values);
+		return values;
+	}
+
+	private void grow() {
+		long[] old = table;
+		table = new long[old.length * 2];
+		int mask = table.length - 1;
+		for (long value : old) {
+			if (value != FREE) {
+				int slot = hash(value) & mask;
+				while (table[slot] != FREE) {
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = value;
+			}
+		}
+	}
+
+	/**
+	 * @return the source and the sink as a single value
+	 */
+	public static long pack(int source, int sink) {
+		return ((long) source << 32) | (sink & 0xFFFFFFFFL);
+	}
+
+	private static int hash(long value) {
+		// spreads consecutive identifiers over the table
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+}
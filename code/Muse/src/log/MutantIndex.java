@@ -0,0 +1,78 @@
+package log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The files of a mutants tree, indexed by their path relative to the root and
+ * by their name. The tree is walked once, when the index is created.
+ */
+public class MutantIndex {
+
+	private final Map<String, File> filesByPath = new HashMap<String, File>();
+	private final Map<String, List<File>> filesByName = new HashMap<String, List<File>>();
+
+	/**
+	 * @param root folder of the mutated files, at any depth
+	 * @throws IOException if the tree cannot be walked
+	 */
+	public MutantIndex(File root) throws IOException {
+		final Path rootPath = root.toPath();
+		Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+				if (attributes.isRegularFile()) {
+					add(rootPath.relativize(path).toString().replace(File.separatorChar, '/'), path.toFile());
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void add(String relativePath, File file) {
+		filesByPath.put(relativePath, file);
+		List<File> files = filesByName.get(file.getName());
+		if (files == null) {
+			files = new ArrayList<File>(1);
+			filesByName.put(file.getName(), files);
+		}
+		files.add(file);
+	}
+
+	/**
+	 * Finds the mutated file at the relative path, or else the only mutated file
+	 * with the same name.
+	 * 
+	 * @param relativePath path relative to the root, separated by slashes
+	 * @return the file, or null if there is none or the name is ambiguous
+	 */
+	public File find(String relativePath) {
+		File file = filesByPath.get(relativePath);
+		if (file != null) {
+			return file;
+		}
+		List<File> files = filesByName.get(relativePath.substring(relativePath.lastIndexOf('/') + 1));
+		return files != null && files.size() == 1 ? files.get(0) : null;
+	}
+
+	/**
+	 * @return the number of files with the name of the path
+	 */
+	public int countByName(String relativePath) {
+		List<File> files = filesByName.get(relativePath.substring(relativePath.lastIndexOf('/') + 1));
+		return files == null ? 0 : files.size();
+	}
+
+	public int size() {
+		return filesByPath.size();
+	}
+}
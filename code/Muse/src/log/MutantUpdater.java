@@ -0,0 +1,187 @@
+package log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Filters the modified files of an app and replaces the mutated files they
+ * correspond to. Each modified file <code>PATH.txt</code> corresponds to the
+ * mutated file <code>PATH.java</code> of the mutants tree, or else to the only
+ * mutated file of that name. The files are filtered on several threads and
+ * printed in order.
+ *
+ * Each file is streamed from the modified file to a temporary file, which then
+ * replaces the mutated file, and is copied to the output once the files before
+ * it have been printed. Only a few files per thread are filtered ahead of the
+ * one being printed, so the memory used does not grow with the size of the app.
+ */
+class MutantUpdater {
+
+	private static final String MODIFIED_SUFFIX = ".txt";
+	private static final String SOURCE_SUFFIX = ".java";
+	// files filtered ahead of the one being printed, for each thread
+	private static final int PENDING_PER_THREAD = 2;
+
+	private final SourceFilter filter;
+	private final int threads;
+
+	/**
+	 * @param filter  removes the false positives of each file
+	 * @param threads number of worker threads
+	 */
+	MutantUpdater(SourceFilter filter, int threads) {
+		this.filter = filter;
+		this.threads = threads;
+	}
+
+	/**
+	 * @param modifiedFolder folder of the modified files, at any depth
+	 * @param mutantsFolder  folder of the mutated files, at any depth
+	 * @throws IOException if a file cannot be read or written, after the files
+	 *                     before it have been updated, or if the thread is
+	 *                     interrupted, with its interrupt status set
+	 */
+	void update(File modifiedFolder, File mutantsFolder) throws IOException {
+		final MutantIndex mutants = new MutantIndex(mutantsFolder);
+		final List<String> modifiedPaths = listModifiedFiles(modifiedFolder);
+		final File tempFolder = Files.createTempDirectory("muse-filtered").toFile();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		// the files being filtered or waiting to be printed, in order
+		Deque<Future<File>> pending = new ArrayDeque<Future<File>>();
+		try {
+			int submitted = 0;
+			for (int printed = 0; printed < modifiedPaths.size(); printed++) {
+				while (submitted < modifiedPaths.size() && pending.size() < threads * PENDING_PER_THREAD) {
+					pending.add(executor.submit(newTask(modifiedFolder, modifiedPaths.get(submitted), submitted,
+							mutants, tempFolder)));
+					submitted++;
+				}
+				try {
+					print(pending.remove().get(), tempFolder);
+				} catch (ExecutionException e) {
+					File modifiedFile = new File(modifiedFolder, modifiedPaths.get(printed));
+					System.err.println(String.format("ERROR PROCESSING \"%s\": %s", modifiedFile.getAbsolutePath(),
+							e.getCause().getMessage()));
+					if (e.getCause() instanceof IOException) {
+						throw (IOException) e.getCause();
+					}
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while updating the mutants");
+		} finally {
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			FileUtils.deleteQuietly(tempFolder);
+		}
+	}
+
+	private Callable<File> newTask(File modifiedFolder, final String modifiedPath, final int ordinal,
+			final MutantIndex mutants, final File tempFolder) {
+		final File modifiedFile = new File(modifiedFolder, modifiedPath);
+		return new Callable<File>() {
+			@Override
+			public File call() throws IOException {
+				String sourcePath = modifiedPath.substring(0, modifiedPath.length() - MODIFIED_SUFFIX.length())
+						+ SOURCE_SUFFIX;
+				File mutatedFile = mutants.find(sourcePath);
+				if (mutatedFile == null && mutants.countByName(sourcePath) > 1) {
+					System.err.println(String.format("AMBIGUOUS MUTANT \"%s\": several files are named %s",
+							modifiedFile.getAbsolutePath(), new File(sourcePath).getName()));
+				}
+				return filter(modifiedFile, mutatedFile, new File(tempFolder, ordinal + MODIFIED_SUFFIX));
+			}
+		};
+	}
+
+	/**
+	 * Streams the filtered modified file to the temporary file, which then
+	 * replaces the mutated file if there is one.
+	 *
+	 * @return the file holding the filtered modified file: the mutated file, or
+	 *         else the temporary file
+	 */
+	private File filter(File modifiedFile, File mutatedFile, File tempFile) throws IOException {
+		BufferedReader source = new BufferedReader(new FileReader(modifiedFile));
+		try {
+			Writer out = new BufferedWriter(new FileWriter(tempFile));
+			try {
+				filter.filter(source, out);
+			} finally {
+				out.close();
+			}
+		} finally {
+			source.close();
+		}
+		if (mutatedFile == null) {
+			return tempFile;
+		}
+		// replacing the file, rather than writing to it, leaves the original source
+		// unchanged if the file is a hard link to it
+		Files.move(tempFile.toPath(), mutatedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return mutatedFile;
+	}
+
+	/**
+	 * Copies the filtered file to the standard output, followed by a new line,
+	 * and deletes it if it is in the temporary folder.
+	 */
+	private static void print(File filtered, File tempFolder) throws IOException {
+		Files.copy(filtered.toPath(), System.out);
+		System.out.println();
+		if (tempFolder.equals(filtered.getParentFile())) {
+			Files.delete(filtered.toPath());
+		}
+	}
+
+	/**
+	 * @return the paths of the modified files relative to the folder, separated
+	 *         by slashes, in a stable order
+	 */
+	private static List<String> listModifiedFiles(File modifiedFolder) throws IOException {
+		final Path root = modifiedFolder.toPath();
+		final List<String> paths = new ArrayList<String>();
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+				if (attributes.isRegularFile() && path.getFileName().toString().endsWith(MODIFIED_SUFFIX)) {
+					paths.add(root.relativize(path).toString().replace(File.separatorChar, '/'));
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(paths);
+		return paths;
+	}
+}
@@ -0,0 +1,18 @@
+package log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Removes the false positives from a modified file, given the leaks found in
+ * the runtime logs.
+ */
+interface SourceFilter {
+
+	/**
+	 * @param source the modified file, read line by line
+	 * @param out    receives the file with only the true positives
+	 */
+	void filter(BufferedReader source, Writer out) throws IOException;
+}
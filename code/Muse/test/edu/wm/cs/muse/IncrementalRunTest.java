@@ -0,0 +1,89 @@
+package edu.wm.cs.muse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.wm.cs.muse.dataleak.support.MuseRun;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
+
+/**
+ * Runs REACHABILITY incrementally on the interesting samples, and checks which
+ * files are mutated again as the app changes.
+ */
+public class IncrementalRunTest {
+
+	File samples = new File("../../interesting_samples");
+	File folder;
+	File source;
+	File mutants;
+
+	@Before
+	public void copy_samples() throws IOException {
+		folder = Files.createTempDirectory("muse-incremental").toFile();
+		source = new File(folder, "src");
+		mutants = new File(folder, "mutants");
+		FileUtils.copyDirectory(samples, source);
+	}
+
+	@After
+	public void delete_samples() throws IOException {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void unchanged_files_are_not_mutated_again() throws Exception {
+		int files = samples.list().length;
+
+		assertTrue(mutate().contains(String.format("Mutating %d of %d files", files, files)));
+		assertTrue(mutate().contains(String.format("Mutating 0 of %d files", files)));
+	}
+
+	@Test
+	public void a_new_first_file_does_not_change_the_leak_identifiers_of_the_others() throws Exception {
+		int files = samples.list().length;
+		mutate();
+		File mainActivity = new File(mutants, "App/MainActivity.java");
+		String mutant = FileUtils.readFileToString(mainActivity, "UTF-8");
+		FileUtils.copyFile(new File(source, "TimeRange.java"), new File(source, "AAA.java"));
+
+		String log = mutate();
+
+		assertTrue(log.contains(String.format("Mutating 1 of %d files", files + 1)));
+		assertEquals(mutant, FileUtils.readFileToString(mainActivity, "UTF-8"));
+		// the new file gets the range after the ones of the other files
+		assertTrue(log.contains("leak-" + files * 10000 + ":"));
+	}
+
+	@Test
+	public void a_removed_file_does_not_change_the_leak_identifiers_of_the_others() throws Exception {
+		int files = samples.list().length;
+		mutate();
+		assertTrue(new File(source, "Activities.java").delete());
+
+		assertTrue(mutate().contains(String.format("Mutating 0 of %d files", files - 1)));
+	}
+
+	/**
+	 * @return what the run printed
+	 */
+	private String mutate() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MuseRun run = new MuseRun(null, source.getPath(), "App", mutants.getPath(), OperatorType.REACHABILITY);
+		run.setIncremental(true);
+		run.setOut(new PrintStream(out, true, "UTF-8"));
+
+		assertTrue(new Muse(run).run());
+		return out.toString("UTF-8");
+	}
+}
@@ -0,0 +1,105 @@
+package edu.wm.cs.muse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test of the connections the server accepts.
+ */
+public class MuseServerTest {
+
+	File folder;
+	File tokenFile;
+	MuseServer server;
+
+	@Before
+	public void start_server() throws IOException {
+		folder = Files.createTempDirectory("muse-server").toFile();
+		tokenFile = new File(folder, "token");
+		server = new MuseServer(0, 1, tokenFile, new File(folder, "mutants"));
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					server.serve();
+				} catch (IOException e) {
+					// closed
+				}
+			}
+		}).start();
+	}
+
+	@After
+	public void stop_server() throws IOException {
+		server.close();
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void only_the_owner_can_read_the_token() throws IOException {
+		assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile.toPath())));
+	}
+
+	@Test
+	public void a_wrong_token_is_refused() throws IOException {
+		assertEquals(MuseServer.EXIT + MuseServer.UNAUTHORIZED, send("0123", "libs4ast src App mutants SINK"));
+	}
+
+	@Test
+	public void mutants_outside_the_root_are_refused() throws IOException {
+		String token = FileUtils.readFileToString(tokenFile, StandardCharsets.UTF_8).trim();
+		File mutants = new File(folder, "mutants");
+
+		assertEquals(MuseServer.EXIT + MuseServer.INCORRECT_USAGE,
+				send(token, "libs4ast\t" + folder + "\tApp\t" + folder + "\tSINK"));
+		assertEquals(MuseServer.EXIT + MuseServer.INCORRECT_USAGE,
+				send(token, "libs4ast\t" + folder + "\t../App\t" + mutants + "\tSINK"));
+		assertTrue(MuseServer.isInside(new File(mutants, "App"), mutants));
+	}
+
+	@Test
+	public void runs_inside_the_root_are_executed() throws IOException {
+		String token = FileUtils.readFileToString(tokenFile, StandardCharsets.UTF_8).trim();
+		File source = new File(folder, "src");
+		FileUtils.copyFile(new File("test/input/sample_helloWorld.txt"), new File(source, "HelloWorld.java"));
+		File mutants = new File(folder, "mutants");
+
+		assertEquals(MuseServer.EXIT + MuseServer.SUCCEEDED,
+				send(token, folder + "\t" + source + "\tApp\t" + mutants + "\tSINK"));
+		assertTrue(new File(mutants, "App/HelloWorld.java").isFile());
+	}
+
+	private String send(String token, String line) throws IOException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+		try {
+			PrintStream out = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+			out.println(token);
+			out.println(line);
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			String last = null;
+			for (String reply = in.readLine(); reply != null; reply = in.readLine()) {
+				last = reply;
+			}
+			return last;
+		} finally {
+			socket.close();
+		}
+	}
+}
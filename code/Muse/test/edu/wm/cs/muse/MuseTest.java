@@ -21,7 +21,6 @@ import org.junit.Test;
 
 import edu.wm.cs.muse.dataleak.support.FileUtility;
 import edu.wm.cs.muse.dataleak.support.OperatorType;
-import edu.wm.cs.muse.dataleak.support.Utility;
 
 /*
  * We will be focusing on creating behavior based test cases. AAA pattern, i.e. 
@@ -146,7 +145,6 @@ public class MuseTest {
 	}
 
 	private void prepare_test_files(OperatorType operator) throws FileNotFoundException, IOException {
-		Utility.COUNTER_GLOBAL = 0;
 		output = new File("test/output/output.txt");
 
 		switch (operator) {
@@ -0,0 +1,65 @@
+package edu.wm.cs.muse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import edu.wm.cs.muse.dataleak.support.Leak;
+import edu.wm.cs.muse.dataleak.support.Mutant;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
+
+/**
+ * Unit test of the leaks the mutator returns with each mutant.
+ */
+public class MutatorTest {
+
+	File input = new File("test/input/sample_multilevelclass.txt");
+
+	@Test
+	public void every_operator_returns_its_leaks() throws Exception {
+		for (OperatorType operatorType : OperatorType.values()) {
+			assertFalse(operatorType.toString(), mutate(operatorType).getLeaks().isEmpty());
+		}
+	}
+
+	@Test
+	public void source_leaks_are_in_the_methods_they_are_inserted_in() throws Exception {
+		List<Leak> leaks = mutate(OperatorType.SOURCE).getLeaks();
+
+		assertEquals(new Leak(0, Leak.NONE, "TestClass.methodA"), leaks.get(0));
+		assertEquals(new Leak(1, Leak.NONE, "TestClass.methodB"), leaks.get(1));
+	}
+
+	@Test
+	public void reachability_leaks_are_in_constructors_and_methods() throws Exception {
+		List<Leak> leaks = mutate(OperatorType.REACHABILITY).getLeaks();
+
+		assertEquals("leak-0: <TestClass.<init>>", leaks.get(0).toString());
+		assertEquals("leak-1: TestClass.methodA", leaks.get(1).toString());
+	}
+
+	@Test
+	public void each_sink_of_a_leak_is_returned() throws Exception {
+		Mutant mutant = mutate(OperatorType.SINK);
+
+		boolean found = false;
+		for (Leak leak : mutant.getLeaks()) {
+			if (leak.hasSink()) {
+				found = true;
+				String tag = "\"leak-" + leak.getSource() + "-" + leak.getSink() + "\"";
+				assertTrue(leak.toString(), mutant.getSource().contains(tag));
+			}
+		}
+		assertTrue(found);
+	}
+
+	private Mutant mutate(OperatorType operatorType) throws Exception {
+		return new Mutator().mutate(FileUtils.readFileToString(input, "UTF-8"), operatorType);
+	}
+}
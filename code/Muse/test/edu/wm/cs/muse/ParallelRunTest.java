@@ -0,0 +1,175 @@
+package edu.wm.cs.muse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.wm.cs.muse.dataleak.support.MuseRun;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
+
+/**
+ * Runs every operator on the interesting samples in each of the ways Muse can
+ * mutate an app, and checks the mutants are the same as the ones of a
+ * sequential run.
+ */
+public class ParallelRunTest {
+
+	File samples = new File("../../interesting_samples");
+	File folder;
+	File source;
+	File binaries;
+	List<String> leaks = new ArrayList<String>();
+
+	@Before
+	public void copy_samples() throws IOException {
+		folder = Files.createTempDirectory("muse-parallel").toFile();
+		source = new File(folder, "src");
+		binaries = new File(folder, "bin");
+		FileUtils.copyDirectory(samples, source);
+		binaries.mkdir();
+	}
+
+	@After
+	public void delete_samples() throws IOException {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void parallel_mutants_are_the_same_as_sequential() throws Exception {
+		Map<String, String> sequential = mutate();
+
+		assertTrue(sequential.size() > OperatorType.values().length);
+		assertEquals(sequential, mutate("--threads=4"));
+	}
+
+	@Test
+	public void batch_mutants_are_the_same_as_sequential() throws Exception {
+		Map<String, String> sequential = mutate();
+
+		assertEquals(sequential, mutate("--batch"));
+		assertEquals(sequential, mutate("--batch", "--threads=4"));
+	}
+
+	@Test
+	public void batch_mutants_of_crlf_sources_are_the_same_as_sequential() throws Exception {
+		File file = new File(source, "MainActivity.java");
+		String crlf = FileUtils.readFileToString(file, "UTF-8").replace("\r\n", "\n").replace("\n", "\r\n");
+		FileUtils.writeStringToFile(file, crlf, "UTF-8");
+		Map<String, String> sequential = mutate();
+
+		assertEquals(sequential, mutate("--batch"));
+		assertEquals(sequential, mutate("--batch", "--threads=4"));
+	}
+
+	@Test
+	public void interrupted_runs_fail() throws Exception {
+		for (int threads : new int[] { 1, 4 }) {
+			for (boolean batch : new boolean[] { false, true }) {
+				MuseRun run = new MuseRun(binaries.getPath(), source.getPath(), "App",
+						new File(folder, "mutants").getPath(), OperatorType.REACHABILITY);
+				run.setThreads(threads);
+				run.setBatch(batch);
+				ByteArrayOutputStream err = new ByteArrayOutputStream();
+				run.setOut(new PrintStream(new ByteArrayOutputStream()));
+				run.setErr(new PrintStream(err, true, "UTF-8"));
+				Thread.currentThread().interrupt();
+				try {
+					assertFalse(threads + " threads, batch " + batch, new Muse(run).run());
+					assertTrue(Thread.currentThread().isInterrupted());
+					assertTrue(err.toString("UTF-8").contains("ERROR MUTATING"));
+				} finally {
+					Thread.interrupted();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void leak_identifiers_do_not_depend_on_the_threads() throws Exception {
+		mutate();
+		List<String> sequential = new ArrayList<String>(leaks);
+		leaks.clear();
+		mutate("--threads=4");
+
+		Collections.sort(sequential);
+		Collections.sort(leaks);
+		assertEquals(sequential, leaks);
+	}
+
+	@Test
+	public void leak_identifiers_are_unique_in_the_app() throws Exception {
+		mutate(new OperatorType[] { OperatorType.REACHABILITY }, "--threads=4");
+
+		HashSet<String> identifiers = new HashSet<String>();
+		for (String leak : leaks) {
+			identifiers.add(leak.substring(0, leak.indexOf(':')));
+		}
+		assertTrue(leaks.size() > samples.list().length);
+		assertEquals(leaks.size(), identifiers.size());
+	}
+
+	/**
+	 * @return the mutants of every operator, by operator and path
+	 */
+	private Map<String, String> mutate(String... options) throws Exception {
+		return mutate(OperatorType.values(), options);
+	}
+
+	/**
+	 * @return the mutants of the operators, by operator and path
+	 */
+	private Map<String, String> mutate(OperatorType[] operatorTypes, String... options) throws Exception {
+		Map<String, String> mutants = new TreeMap<String, String>();
+		for (OperatorType operatorType : operatorTypes) {
+			File mutantsFolder = new File(folder, "mutants");
+			FileUtils.deleteDirectory(mutantsFolder);
+			String[] args = new String[5 + options.length];
+			args[0] = binaries.getPath();
+			args[1] = source.getPath();
+			args[2] = "App";
+			args[3] = mutantsFolder.getPath();
+			args[4] = operatorType.name();
+			System.arraycopy(options, 0, args, 5, options.length);
+			PrintStream out = System.out;
+			ByteArrayOutputStream log = new ByteArrayOutputStream();
+			System.setOut(new PrintStream(log, true, "UTF-8"));
+			try {
+				new Muse().runMuse(args);
+			} finally {
+				System.setOut(out);
+			}
+			for (String line : log.toString("UTF-8").split("\\r?\\n")) {
+				if (line.startsWith("leak-")) {
+					leaks.add(line);
+				}
+			}
+
+			File app = new File(mutantsFolder, "App");
+			Collection<File> files = FileUtils.listFiles(app, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+			for (File file : files) {
+				String path = app.toURI().relativize(file.toURI()).getPath();
+				mutants.put(operatorType + "/" + path, FileUtils.readFileToString(file, "UTF-8"));
+			}
+		}
+		return mutants;
+	}
+}
@@ -0,0 +1,69 @@
+package edu.wm.cs.muse.dataleak;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import edu.wm.cs.muse.dataleak.support.OperatorType;
+
+/**
+ * Checks that the default templates render the same snippets the operators
+ * used to format.
+ */
+public class DataLeakTest {
+
+	private static final String DISPLAY_NAME = "java.util.Calendar.getInstance().getTimeZone().getDisplayName();";
+
+	@Test
+	public void source_snippets() {
+		assertEquals("String dataLeAk5 = \"\";", DataLeak.getDeclaration(OperatorType.SOURCE, 5));
+		assertEquals("dataLeAk5 = " + DISPLAY_NAME, DataLeak.getSource(OperatorType.SOURCE, 5));
+		assertNull(DataLeak.getSink(OperatorType.SOURCE, 5, 0));
+	}
+
+	@Test
+	public void sink_snippets() {
+		assertEquals("final String dataLeAk5 = " + DISPLAY_NAME, DataLeak.getSource(OperatorType.SINK, 5));
+		assertEquals("android.util.Log.d(\"leak-5-2\", dataLeAk5);", DataLeak.getSink(OperatorType.SINK, 5, 2));
+	}
+
+	@Test
+	public void taint_snippets() {
+		assertEquals("String dataLeAk5 = \"5\";", DataLeak.getDeclaration(OperatorType.TAINT, 5));
+		assertEquals("dataLeAk5 = " + DISPLAY_NAME, DataLeak.getSource(OperatorType.TAINT, 5));
+		assertEquals("android.util.Log.d(\"leak-5-2\", dataLeAk5);", DataLeak.getSink(OperatorType.TAINTSINK, "5", 2));
+	}
+
+	@Test
+	public void reachability_leak() {
+		assertEquals("String dataLeAk5 = " + DISPLAY_NAME + "\n"
+				+ "Object throwawayLeAk5 = android.util.Log.d(\"leak-5\", dataLeAk5);", DataLeak.getLeak(5));
+	}
+
+	@Test
+	public void complex_reachability_leaks_take_the_path_of_their_identifier() {
+		String source = "String dataLeAk%d = " + DISPLAY_NAME + "\n";
+		String sink = "\nandroid.util.Log.d(\"leak-%d\", dataLeAkPath%d);";
+		String[] paths = new String[] {
+				"String[] leakArRay%d = new String[] {\"n/a\", dataLeAk%d};\n"
+						+ "String dataLeAkPath%d = leakArRay%d[leakArRay%d.length - 1];",
+				"java.util.HashMap<String, java.util.HashMap<String, String>> leakMaP%d = new java.util.HashMap<String, java.util.HashMap<String, String>>();\n"
+						+ "leakMaP%d.put(\"test\", new java.util.HashMap<String, String>());\n"
+						+ "leakMaP%d.get(\"test\").put(\"test\", dataLeAk%d);\n"
+						+ "String dataLeAkPath%d = leakMaP%d.get(\"test\").get(\"test\");",
+				"StringBuffer leakBuFFer%d = new StringBuffer();" + "for (char chAr%d : dataLeAk%d.toCharArray()) {"
+						+ "leakBuFFer%d.append(chAr%d);" + "}" + "String dataLeAkPath%d = leakBuFFer%d.toString();",
+				"String dataLeAkPath%d;" + "try {" + "throw new Exception(dataLeAk%d);"
+						+ "} catch (Exception leakErRor%d) {" + "dataLeAkPath%d = leakErRor%d.getMessage();" + "}" };
+		for (int id = 8; id < 12; id++) {
+			String expected = (source + paths[id % paths.length] + sink).replace("%d", String.valueOf(id));
+			assertEquals(expected, DataLeak.getLeak(OperatorType.COMPLEXREACHABILITY, id));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void only_reachability_operators_have_whole_leaks() {
+		DataLeak.getLeak(OperatorType.SINK, 5);
+	}
+}
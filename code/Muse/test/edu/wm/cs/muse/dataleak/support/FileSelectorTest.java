@@ -0,0 +1,97 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test of the selection of the source files to mutate.
+ */
+public class FileSelectorTest {
+
+	File folder;
+	File root;
+	File outputRoot;
+
+	@Before
+	public void create_app() throws IOException {
+		folder = Files.createTempDirectory("muse-selector").toFile();
+		root = new File(folder, "src");
+		outputRoot = new File(folder, "mutants/App");
+		outputRoot.mkdirs();
+		for (String path : Arrays.asList("com/app/Main.java", "com/app/MainUnitTest.java", "com/app/notes.txt",
+				"com/app/ui/View.java", "build/generated/R.java", ".git/Hook.java", "com/app/gen/Gen.java")) {
+			FileUtils.writeStringToFile(new File(root, path), "class A {}", "UTF-8");
+		}
+	}
+
+	@After
+	public void delete_app() throws IOException {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void default_patterns_select_the_java_sources_in_order() throws IOException {
+		FileSelector selector = new FileSelector(FileSelector.DEFAULT_INCLUDES, FileSelector.DEFAULT_EXCLUDES, "App");
+
+		assertEquals(Arrays.asList("com/app/Main.java", "com/app/gen/Gen.java", "com/app/ui/View.java"),
+				selector.select(root, outputRoot));
+	}
+
+	@Test
+	public void excluded_folders_are_pruned() throws IOException {
+		FileSelector selector = new FileSelector(FileSelector.DEFAULT_INCLUDES, Arrays.asList("gen", "ui"), "App");
+
+		assertEquals(Arrays.asList(".git/Hook.java", "build/generated/R.java", "com/app/Main.java",
+				"com/app/MainUnitTest.java"), selector.select(root, outputRoot));
+	}
+
+	@Test
+	public void patterns_with_a_slash_match_the_relative_path() throws IOException {
+		FileSelector selector = new FileSelector(Arrays.asList("com/app/*.java"),
+				Arrays.asList("com/**/Main*.java"), "App");
+
+		assertEquals(Collections.<String>emptyList(), selector.select(root, outputRoot));
+
+		selector = new FileSelector(Arrays.asList("com/app/**.java"), Arrays.asList("**/Main*.java"), "App");
+
+		assertEquals(Arrays.asList("com/app/gen/Gen.java", "com/app/ui/View.java"), selector.select(root, outputRoot));
+	}
+
+	@Test
+	public void build_folders_are_left_out_but_not_build_packages() throws IOException {
+		for (String path : Arrays.asList("app/build/generated/R.java", "com/app/build/Config.java")) {
+			FileUtils.writeStringToFile(new File(root, path), "class A {}", "UTF-8");
+		}
+		FileSelector selector = new FileSelector(FileSelector.DEFAULT_INCLUDES, FileSelector.DEFAULT_EXCLUDES, "");
+
+		assertEquals(Arrays.asList("com/app/Main.java", "com/app/build/Config.java", "com/app/gen/Gen.java",
+				"com/app/ui/View.java"), selector.select(root, outputRoot));
+	}
+
+	@Test
+	public void a_pattern_ending_with_any_path_excludes_the_folder() throws IOException {
+		FileSelector selector = new FileSelector(FileSelector.DEFAULT_INCLUDES, Arrays.asList("com/app/ui/**"),
+				"App");
+
+		assertEquals(Arrays.asList(".git/Hook.java", "build/generated/R.java", "com/app/Main.java",
+				"com/app/MainUnitTest.java", "com/app/gen/Gen.java"), selector.select(root, outputRoot));
+	}
+
+	@Test
+	public void files_outside_the_package_of_the_app_are_left_out() throws IOException {
+		FileSelector selector = new FileSelector(FileSelector.DEFAULT_INCLUDES, FileSelector.DEFAULT_EXCLUDES,
+				"com.app.ui");
+
+		assertEquals(Arrays.asList("com/app/ui/View.java"), selector.select(root, outputRoot));
+	}
+}
@@ -0,0 +1,49 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit test of the leak identifiers reserved for each compilation unit.
+ */
+public class LeakIdAllocatorTest {
+
+	@Test
+	public void each_unit_gets_the_range_of_its_position() {
+		LeakIdAllocator allocator = new LeakIdAllocator(100);
+
+		assertEquals(0, allocator.getRange(0).getStart());
+		assertEquals(300, allocator.getRange(3).getStart());
+		assertEquals(allocator.getRange(3).getStart(), allocator.getRange(3).getStart());
+	}
+
+	@Test
+	public void ranges_are_fresh() {
+		LeakIdAllocator allocator = new LeakIdAllocator(100);
+		LeakIdRange range = allocator.getRange(1);
+		range.getAndIncrement();
+		range.nextSinkId();
+
+		assertEquals(100, allocator.getRange(1).getAndIncrement());
+		assertEquals(100, allocator.getRange(1).nextSinkId());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void identifiers_do_not_leave_their_range() {
+		LeakIdRange range = new LeakIdAllocator(2).getRange(5);
+		assertEquals(10, range.getAndIncrement());
+		assertEquals(11, range.getAndIncrement());
+		range.getAndIncrement();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void ranges_past_the_last_identifier_are_refused() {
+		new LeakIdAllocator(LeakIdAllocator.DEFAULT_RANGE_SIZE).getRange(Integer.MAX_VALUE / 10000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negative_positions_are_refused() {
+		new LeakIdAllocator().getRange(-1);
+	}
+}
@@ -0,0 +1,103 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test of the manifest incremental runs decide which mutants are up to
+ * date with.
+ */
+public class MutationManifestTest {
+
+	private static final String SOURCE_HASH = MutationManifest.hash("class A {}");
+
+	File folder;
+	File outputRoot;
+
+	@Before
+	public void create_output_folder() throws IOException {
+		folder = Files.createTempDirectory("muse-manifest").toFile();
+		outputRoot = new File(folder, "App");
+		outputRoot.mkdirs();
+	}
+
+	@After
+	public void delete_output_folder() throws IOException {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void saved_entries_are_current_with_the_same_inputs() throws IOException {
+		record(RewriterType.AST, LeakTemplateCatalog.getDefault());
+
+		MutationManifest manifest = MutationManifest.load(outputRoot, RewriterType.AST,
+				LeakTemplateCatalog.getDefault());
+
+		assertTrue(manifest.isCurrent("A.java", SOURCE_HASH, OperatorType.SINK, 0));
+		assertFalse(manifest.isCurrent("A.java", MutationManifest.hash("class B {}"), OperatorType.SINK, 0));
+		assertFalse(manifest.isCurrent("A.java", SOURCE_HASH, OperatorType.TAINT, 0));
+		assertFalse(manifest.isCurrent("A.java", SOURCE_HASH, OperatorType.SINK, 10000));
+	}
+
+	@Test
+	public void another_rewriter_makes_entries_out_of_date() throws IOException {
+		record(RewriterType.AST, LeakTemplateCatalog.getDefault());
+
+		MutationManifest manifest = MutationManifest.load(outputRoot, RewriterType.TEXT,
+				LeakTemplateCatalog.getDefault());
+
+		assertFalse(manifest.isCurrent("A.java", SOURCE_HASH, OperatorType.SINK, 0));
+	}
+
+	@Test
+	public void other_templates_make_entries_out_of_date() throws IOException {
+		File templatesFile = new File(folder, "templates.properties");
+		FileUtils.writeStringToFile(templatesFile,
+				"sink.SINK = android.util.Log.e(\"leak-{{ id }}-{{ sink }}\", dataLeAk{{ id }});\n",
+				StandardCharsets.UTF_8);
+		LeakTemplateCatalog templates = LeakTemplateCatalog.load(templatesFile);
+		record(RewriterType.AST, LeakTemplateCatalog.getDefault());
+
+		MutationManifest manifest = MutationManifest.load(outputRoot, RewriterType.AST, templates);
+
+		assertNotEquals(LeakTemplateCatalog.getDefault().getHash(), templates.getHash());
+		assertFalse(manifest.isCurrent("A.java", SOURCE_HASH, OperatorType.SINK, 0));
+	}
+
+	@Test
+	public void the_leak_identifiers_of_each_file_are_read_back() throws IOException {
+		MutationManifest manifest = MutationManifest.load(outputRoot, RewriterType.AST,
+				LeakTemplateCatalog.getDefault());
+		manifest.record("B.java", SOURCE_HASH, OperatorType.SINK, 30000);
+		manifest.save();
+
+		manifest = MutationManifest.load(outputRoot, RewriterType.TEXT, LeakTemplateCatalog.getDefault());
+
+		assertEquals(30000, manifest.getLeakIdStart("B.java"));
+		assertEquals(-1, manifest.getLeakIdStart("A.java"));
+	}
+
+	@Test
+	public void the_build_is_hashed() {
+		assertNotNull(MutationManifest.BUILD_HASH);
+	}
+
+	private void record(RewriterType rewriterType, LeakTemplateCatalog templates) throws IOException {
+		MutationManifest manifest = MutationManifest.load(outputRoot, rewriterType, templates);
+		manifest.record("A.java", SOURCE_HASH, OperatorType.SINK, 0);
+		manifest.save();
+	}
+}
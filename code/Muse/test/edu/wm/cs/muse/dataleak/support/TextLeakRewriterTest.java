@@ -0,0 +1,103 @@
+package edu.wm.cs.muse.dataleak.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.wm.cs.muse.Muse;
+
+/**
+ * Checks that inserting the leaks directly into the text of the sources makes
+ * the same mutants as rewriting their trees, except for whitespace.
+ */
+public class TextLeakRewriterTest {
+
+	File samples = new File("../../interesting_samples");
+	File folder;
+	File source;
+	File binaries;
+
+	@Before
+	public void copy_samples() throws IOException {
+		folder = Files.createTempDirectory("muse-text").toFile();
+		source = new File(folder, "src");
+		binaries = new File(folder, "bin");
+		FileUtils.copyDirectory(samples, source);
+		FileUtils.copyFile(new File("test/input/sample_helloWorld.txt"), new File(source, "HelloWorld.java"));
+		binaries.mkdir();
+	}
+
+	@After
+	public void delete_samples() throws IOException {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void text_mutants_are_the_same_as_ast_mutants_except_for_whitespace() throws Exception {
+		List<String> expectedLeaks = new ArrayList<String>();
+		List<String> actualLeaks = new ArrayList<String>();
+		for (OperatorType operatorType : OperatorType.values()) {
+			Map<String, String> expected = mutate(operatorType, "--rewriter=ast", expectedLeaks);
+			Map<String, String> actual = mutate(operatorType, "--rewriter=text", actualLeaks);
+
+			assertEquals(operatorType.toString(), expected.keySet(), actual.keySet());
+			for (String path : expected.keySet()) {
+				assertEquals(operatorType + " " + path, withoutWhitespace(expected.get(path)),
+						withoutWhitespace(actual.get(path)));
+			}
+		}
+		assertTrue(!expectedLeaks.isEmpty());
+		assertEquals(expectedLeaks, actualLeaks);
+	}
+
+	/**
+	 * @return the mutants of the operator, by path
+	 */
+	private Map<String, String> mutate(OperatorType operatorType, String rewriter, List<String> leaks)
+			throws Exception {
+		File mutantsFolder = new File(folder, "mutants");
+		FileUtils.deleteDirectory(mutantsFolder);
+		PrintStream out = System.out;
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(log, true, "UTF-8"));
+		try {
+			new Muse().runMuse(new String[] { binaries.getPath(), source.getPath(), "App", mutantsFolder.getPath(),
+					operatorType.name(), rewriter });
+		} finally {
+			System.setOut(out);
+		}
+		for (String line : log.toString("UTF-8").split("\\r?\\n")) {
+			if (line.startsWith("leak-")) {
+				leaks.add(line);
+			}
+		}
+
+		Map<String, String> mutants = new TreeMap<String, String>();
+		File app = new File(mutantsFolder, "App");
+		Collection<File> files = FileUtils.listFiles(app, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+		for (File file : files) {
+			mutants.put(app.toURI().relativize(file.toURI()).getPath(), FileUtils.readFileToString(file, "UTF-8"));
+		}
+		return mutants;
+	}
+
+	private static String withoutWhitespace(String mutant) {
+		return mutant.replaceAll("\\s+", "");
+	}
+}
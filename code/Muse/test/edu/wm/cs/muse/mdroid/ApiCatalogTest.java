@@ -0,0 +1,155 @@
+package edu.wm.cs.muse.mdroid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+import org.junit.Test;
+
+/**
+ * Unit test of the APIs read into a catalog, and of the call sites the
+ * visitors match against it once their bindings are resolved.
+ */
+public class ApiCatalogTest {
+
+	@Test
+	public void susi_lines_are_indexed_by_simple_type_name_and_method_name() throws IOException {
+		ApiCatalog catalog = read(
+				"<android.telephony.TelephonyManager: java.lang.String getDeviceId()> (UNIQUE_IDENTIFIER)\n"
+						+ "<android.location.Location: double getLatitude()> android.permission.ACCESS_FINE_LOCATION (LOCATION_INFORMATION)\n");
+
+		assertTrue(catalog.contains("TelephonyManager", "getDeviceId"));
+		assertTrue(catalog.contains("Location", "getLatitude"));
+		assertFalse(catalog.contains("android.telephony.TelephonyManager", "getDeviceId"));
+		assertFalse(catalog.contains("TelephonyManager", "getLatitude"));
+		assertEquals(2, catalog.size());
+	}
+
+	@Test
+	public void nested_types_are_indexed_by_their_own_name() throws IOException {
+		ApiCatalog catalog = read("<android.view.View$OnClickListener: void onClick(android.view.View)>\n"
+				+ "<android.app.AlarmManager$AlarmClockInfo$Builder: void build()>\n");
+
+		assertTrue(catalog.contains("OnClickListener", "onClick"));
+		assertTrue(catalog.contains("Builder", "build"));
+		assertFalse(catalog.containsType("View$OnClickListener"));
+		assertEquals(new HashSet<String>(Arrays.asList("OnClickListener", "Builder")), catalog.getTypeNames());
+	}
+
+	@Test
+	public void constructors_are_indexed_as_init() throws IOException {
+		ApiCatalog catalog = read("<android.content.Intent: void <init>(java.lang.String,android.net.Uri)>\n"
+				+ "URL.<init>\n");
+
+		assertTrue(catalog.contains("Intent", ApiCatalog.CONSTRUCTOR));
+		assertTrue(catalog.contains("URL", ApiCatalog.CONSTRUCTOR));
+		assertEquals(2, catalog.size());
+	}
+
+	@Test
+	public void type_and_method_lines_are_split_at_the_last_dot() throws IOException {
+		ApiCatalog catalog = read("TelephonyManager.getDeviceId\nView.OnClickListener\n");
+
+		assertTrue(catalog.contains("TelephonyManager", "getDeviceId"));
+		assertTrue(catalog.contains("View", "OnClickListener"));
+	}
+
+	@Test
+	public void empty_comment_and_header_lines_are_skipped() throws IOException {
+		ApiCatalog catalog = read("# sources of the demo app\n\n  \nUNIQUE_IDENTIFIER:\n"
+				+ "  <android.telephony.TelephonyManager: java.lang.String getDeviceId()>  \n"
+				+ "TelephonyManager.getDeviceId\n");
+
+		assertEquals(Collections.singleton("TelephonyManager"), catalog.getTypeNames());
+		assertEquals(1, catalog.size());
+	}
+
+	@Test
+	public void malformed_lines_are_rejected_with_their_number() throws IOException {
+		String[] malformed = { "<android.telephony.TelephonyManager java.lang.String getDeviceId()>",
+				"<android.telephony.TelephonyManager: java.lang.String getDeviceId>", "getDeviceId",
+				"TelephonyManager.", ".getDeviceId" };
+		for (String line : malformed) {
+			try {
+				read("# header\n" + line + "\n");
+				fail(line);
+			} catch (IllegalArgumentException e) {
+				assertEquals("Malformed API at line 2: " + line, e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void target_calls_without_a_method_name_are_dropped() {
+		ApiCatalog catalog = ApiCatalog.of(Arrays.asList("TelephonyManager.getDeviceId", "getDeviceId", "Intent."));
+
+		assertEquals(Collections.singleton("TelephonyManager"), catalog.getTypeNames());
+		assertEquals(1, catalog.size());
+	}
+
+	@Test
+	public void resolved_call_sites_are_matched_by_their_receiver_type() throws IOException {
+		CompilationUnit unit = parse("class TelephonyManager { Object getDeviceId() { return null; } }\n"
+				+ "class Box<T> { void put(T t) { } }\n" + "class Intent { }\n"
+				+ "class View { interface OnClickListener { } }\n" + "class A {\n"
+				+ "  void a(TelephonyManager manager, Box<Object> box) {\n" + "    manager.getDeviceId();\n"
+				+ "    box.put(null);\n" + "    new Intent();\n" + "    new View.OnClickListener() { };\n"
+				+ "    new A().getDeviceId();\n" + "    getDeviceId();\n" + "    unknown.getDeviceId();\n"
+				+ "  }\n" + "  Object getDeviceId() { return null; }\n" + "}\n");
+		ApiCatalog catalog = ApiCatalog.of(Arrays.asList("TelephonyManager.getDeviceId", "Box.put",
+				"Intent.<init>", "View.OnClickListener"));
+
+		assertEquals(new TreeSet<String>(Arrays.asList("TelephonyManager.getDeviceId", "Box<Object>.put")),
+				names(ASTHelper.getMethodCallsFromCU(unit, catalog)));
+		assertEquals(new TreeSet<String>(Arrays.asList("Intent.<init>", "View.OnClickListener")),
+				names(ASTHelper.getClassInstanceCreationsFromCU(unit, catalog)));
+	}
+
+	private static ApiCatalog read(String lines) throws IOException {
+		return ApiCatalog.read(new StringReader(lines));
+	}
+
+	/**
+	 * @return the tree of the source, with its bindings resolved
+	 */
+	private static CompilationUnit parse(String source) throws IOException {
+		File folder = Files.createTempDirectory("muse-catalog").toFile();
+		try {
+			File file = new File(folder, "A.java");
+			FileUtils.writeStringToFile(file, source, "UTF-8");
+			final CompilationUnit[] unit = new CompilationUnit[1];
+			new ParserEnvironment(null, folder.getPath()).parse(Collections.singletonList(file),
+					new FileASTRequestor() {
+						@Override
+						public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+							unit[0] = ast;
+						}
+					}, true);
+			return unit[0];
+		} finally {
+			FileUtils.deleteDirectory(folder);
+		}
+	}
+
+	private static Set<String> names(Set<MethodCallVO> calls) {
+		Set<String> names = new TreeSet<String>();
+		for (MethodCallVO call : calls) {
+			names.add(call.getFullName());
+		}
+		return names;
+	}
+}
@@ -0,0 +1,51 @@
+package edu.wm.cs.muse.mdroid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test of the environment the compilation units are parsed in.
+ */
+public class ParserEnvironmentTest {
+
+	private static final String SOURCE = "class A { String name; }";
+
+	File binaries;
+
+	@Before
+	public void create_binaries() throws IOException {
+		binaries = Files.createTempDirectory("muse-binaries").toFile();
+	}
+
+	@After
+	public void delete_binaries() throws IOException {
+		FileUtils.deleteDirectory(binaries);
+	}
+
+	@Test
+	public void the_binaries_folder_is_not_listed_without_bindings() throws IOException {
+		ParserEnvironment environment = new ParserEnvironment(binaries.getPath(), null);
+		environment.parse(SOURCE, false);
+		FileUtils.touch(new File(binaries, "android.jar"));
+
+		assertArrayEquals(new String[] { binaries.getPath() + File.separator + "android.jar" },
+				environment.getClassPath());
+	}
+
+	@Test
+	public void a_missing_binaries_folder_is_an_empty_classpath() {
+		ParserEnvironment environment = new ParserEnvironment(new File(binaries, "missing").getPath(), null);
+
+		assertNotNull(environment.parse(SOURCE, true));
+		assertArrayEquals(new String[0], environment.getClassPath());
+	}
+}
@@ -0,0 +1,81 @@
+package log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit test of the leak tags read from runtime logs and mutated sources.
+ */
+public class LeakTagTest {
+
+	LeakTag tag = new LeakTag();
+
+	@Test
+	public void source_tag() {
+		assertTrue(tag.parse("D/leak-12: MainActivity.onCreate", LeakTag.LEAK_PREFIX, ":"));
+		assertEquals(12, tag.getSource());
+		assertFalse(tag.hasSink());
+		assertEquals(LeakTag.NONE, tag.getSink());
+	}
+
+	@Test
+	public void sink_tag() {
+		assertTrue(tag.parse("android.util.Log.d(\"leak-12-3\", dataLeAk12);", LeakTag.LEAK_PREFIX, "\""));
+		assertEquals(12, tag.getSource());
+		assertEquals(3, tag.getSink());
+	}
+
+	@Test
+	public void declaration_tag() {
+		assertTrue(tag.parse("String dataLeAk7 = \"\";", LeakTag.DECLARATION_PREFIX, " "));
+		assertEquals(7, tag.getSource());
+	}
+
+	@Test
+	public void zero_is_an_identifier() {
+		assertTrue(tag.parse("leak-0-0: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertEquals(0, tag.getSource());
+		assertEquals(0, tag.getSink());
+	}
+
+	@Test
+	public void negative_identifiers_are_refused() {
+		assertFalse(tag.parse("leak--1: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertEquals(LeakTag.NONE, tag.getSource());
+		assertFalse(tag.parse("leak-1--2: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertEquals(LeakTag.NONE, tag.getSource());
+	}
+
+	@Test
+	public void malformed_identifiers_are_refused() {
+		assertFalse(tag.parse("no tag here", LeakTag.LEAK_PREFIX, ":"));
+		assertFalse(tag.parse("leak-: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertFalse(tag.parse("leak-12-: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertFalse(tag.parse("leak-1x: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertFalse(tag.parse("leak-2147483648: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertTrue(tag.parse("leak-2147483647: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertEquals(Integer.MAX_VALUE, tag.getSource());
+	}
+
+	@Test
+	public void a_failed_parse_clears_the_previous_tag() {
+		assertTrue(tag.parse("leak-4-5: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertFalse(tag.parse("leak-x: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertEquals(LeakTag.NONE, tag.getSource());
+		assertEquals(LeakTag.NONE, tag.getSink());
+	}
+
+	@Test
+	public void the_tag_ends_at_the_terminator_the_next_prefix_or_the_line() {
+		assertTrue(tag.parse("leak-1-2-3: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertEquals(1, tag.getSource());
+		assertEquals(2, tag.getSink());
+		assertTrue(tag.parse("leak-8leak-9: A.a", LeakTag.LEAK_PREFIX, ":"));
+		assertEquals(8, tag.getSource());
+		assertTrue(tag.parse("leak-42", LeakTag.LEAK_PREFIX, ":"));
+		assertEquals(42, tag.getSource());
+	}
+}
@@ -0,0 +1,52 @@
+package log;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Unit test of the leak indices read from runtime logs and of the sources
+ * written back with only those leaks.
+ */
+public class LogAnalyzerTest {
+
+	LogAnalyzer analyzer = new LogAnalyzer();
+
+	@Test
+	public void indices_are_read_from_the_tags_of_the_logs() throws Exception {
+		IntHashSet indices = analyzer.readIndicesFromLogs(new BufferedReader(new StringReader(
+				"D/leak-0: A.a\nno tag here\nD/leak-12: A.b\nD/leak-12: A.b\nD/leak-2147483647: A.c\n")));
+
+		assertArrayEquals(new int[] { 0, 12, Integer.MAX_VALUE }, indices.toArray());
+	}
+
+	@Test
+	public void malformed_tags_are_skipped() throws Exception {
+		IntHashSet indices = analyzer.readIndicesFromLogs(new BufferedReader(new StringReader(
+				"D/leak-: A.a\nD/leak-1x: A.b\nD/leak-2147483648: A.c\nD/leak--1: A.d\nD/leak-3leak-4: A.e\n")));
+
+		assertArrayEquals(new int[] { 3 }, indices.toArray());
+	}
+
+	@Test
+	public void only_the_logged_leaks_are_kept() throws Exception {
+		String source = "class A {\n" + "void a() {\n" + "String dataLeAk1 = \"\";\n"
+				+ "Object throwawayLeAk1 = android.util.Log.d(\"leak-1\", dataLeAk1);\n"
+				+ "String dataLeAk2 = \"\";\n"
+				+ "Object throwawayLeAk2 = android.util.Log.d(\"leak-2\", dataLeAk2);\n" + "}\n" + "}\n\n";
+		IntHashSet indices = new IntHashSet();
+		indices.add(2);
+		StringWriter out = new StringWriter();
+
+		analyzer.removeUnusedIndicesFromSource(new BufferedReader(new StringReader(source)), indices, out);
+
+		assertEquals("class A {\n" + "void a() {\n" + "String dataLeAk2 = \"\";\n"
+				+ "Object throwawayLeAk2 = android.util.Log.d(\"leak-2\", dataLeAk2);\n" + "}\n" + "}\n",
+				out.toString());
+	}
+}
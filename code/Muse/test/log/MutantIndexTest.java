@@ -0,0 +1,63 @@
+package log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test of the lookup of mutated files by path and by name.
+ */
+public class MutantIndexTest {
+
+	File root;
+
+	@Before
+	public void create_mutants() throws IOException {
+		root = Files.createTempDirectory("muse-index").toFile();
+		for (String path : new String[] { "com/app/A.java", "com/app/B.java", "com/lib/B.java", "C.java" }) {
+			FileUtils.writeStringToFile(new File(root, path), path, "UTF-8");
+		}
+	}
+
+	@After
+	public void delete_mutants() throws IOException {
+		FileUtils.deleteDirectory(root);
+	}
+
+	@Test
+	public void nested_paths_are_found() throws IOException {
+		MutantIndex index = new MutantIndex(root);
+
+		assertEquals(4, index.size());
+		assertEquals(new File(root, "com/app/A.java"), index.find("com/app/A.java"));
+		assertEquals(new File(root, "com/lib/B.java"), index.find("com/lib/B.java"));
+		assertEquals(new File(root, "C.java"), index.find("C.java"));
+	}
+
+	@Test
+	public void a_unique_name_is_found_from_another_path() throws IOException {
+		MutantIndex index = new MutantIndex(root);
+
+		assertEquals(new File(root, "com/app/A.java"), index.find("A.java"));
+		assertEquals(new File(root, "com/app/A.java"), index.find("other/A.java"));
+		assertEquals(1, index.countByName("A.java"));
+	}
+
+	@Test
+	public void an_ambiguous_name_is_not_found() throws IOException {
+		MutantIndex index = new MutantIndex(root);
+
+		assertNull(index.find("B.java"));
+		assertEquals(2, index.countByName("other/B.java"));
+		assertNull(index.find("D.java"));
+		assertEquals(0, index.countByName("D.java"));
+	}
+}
@@ -0,0 +1,150 @@
+package log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks which mutated files the filtered modified files replace, and what is
+ * printed.
+ */
+public class MutantUpdaterTest {
+
+	File folder;
+	File modified;
+	File mutants;
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	ByteArrayOutputStream err = new ByteArrayOutputStream();
+	PrintStream systemOut;
+	PrintStream systemErr;
+
+	// keeps the lines that do not start with a dash
+	MutantUpdater updater = new MutantUpdater(new SourceFilter() {
+		@Override
+		public void filter(BufferedReader source, Writer out) throws IOException {
+			String line;
+			while ((line = source.readLine()) != null) {
+				if (!line.startsWith("-")) {
+					out.write(line);
+					out.write('\n');
+				}
+			}
+		}
+	}, 2);
+
+	@Before
+	public void create_folders() throws IOException {
+		folder = Files.createTempDirectory("muse-updater").toFile();
+		modified = new File(folder, "modified");
+		mutants = new File(folder, "mutants");
+		modified.mkdirs();
+		mutants.mkdirs();
+		systemOut = System.out;
+		systemErr = System.err;
+		System.setOut(new PrintStream(out, true, "UTF-8"));
+		System.setErr(new PrintStream(err, true, "UTF-8"));
+	}
+
+	@After
+	public void delete_folders() throws IOException {
+		System.setOut(systemOut);
+		System.setErr(systemErr);
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void nested_files_replace_the_mutants_at_the_same_path() throws IOException {
+		write(modified, "com/app/A.txt", "a\n-a\n");
+		write(modified, "com/lib/A.txt", "b\n-b\n");
+		write(mutants, "com/app/A.java", "mutant");
+		write(mutants, "com/lib/A.java", "mutant");
+
+		updater.update(modified, mutants);
+
+		assertEquals("a\n", read(mutants, "com/app/A.java"));
+		assertEquals("b\n", read(mutants, "com/lib/A.java"));
+		assertEquals("a\n\nb\n\n", printed(out));
+	}
+
+	@Test
+	public void a_file_replaces_the_only_mutant_of_its_name() throws IOException {
+		write(modified, "A.txt", "a\n-a\n");
+		write(mutants, "com/app/A.java", "mutant");
+
+		updater.update(modified, mutants);
+
+		assertEquals("a\n", read(mutants, "com/app/A.java"));
+	}
+
+	@Test
+	public void an_ambiguous_name_is_reported_and_replaces_nothing() throws IOException {
+		write(modified, "B.txt", "b\n-b\n");
+		write(mutants, "com/app/B.java", "mutant");
+		write(mutants, "com/lib/B.java", "mutant");
+
+		updater.update(modified, mutants);
+
+		assertEquals("mutant", read(mutants, "com/app/B.java"));
+		assertEquals("mutant", read(mutants, "com/lib/B.java"));
+		assertTrue(printed(err).contains("AMBIGUOUS MUTANT"));
+		// the filtered file is still printed
+		assertEquals("b\n\n", printed(out));
+	}
+
+	@Test
+	public void replacing_a_hard_linked_mutant_leaves_the_source_unchanged() throws IOException {
+		write(modified, "A.txt", "a\n-a\n");
+		File source = write(folder, "source/A.java", "source");
+		File mutant = new File(mutants, "A.java");
+		Files.createLink(mutant.toPath(), source.toPath());
+
+		updater.update(modified, mutants);
+
+		assertEquals("a\n", read(mutants, "A.java"));
+		assertEquals("source", read(folder, "source/A.java"));
+	}
+
+	@Test
+	public void an_interrupted_update_fails() throws IOException {
+		write(modified, "A.txt", "a\n");
+		write(mutants, "A.java", "mutant");
+
+		Thread.currentThread().interrupt();
+		try {
+			updater.update(modified, mutants);
+			fail();
+		} catch (InterruptedIOException e) {
+			assertTrue(Thread.currentThread().isInterrupted());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	private static File write(File root, String path, String contents) throws IOException {
+		File file = new File(root, path);
+		FileUtils.writeStringToFile(file, contents, "UTF-8");
+		return file;
+	}
+
+	private static String read(File root, String path) throws IOException {
+		return FileUtils.readFileToString(new File(root, path), "UTF-8");
+	}
+
+	private static String printed(ByteArrayOutputStream stream) throws IOException {
+		return stream.toString("UTF-8").replace(System.lineSeparator(), "\n");
+	}
+}
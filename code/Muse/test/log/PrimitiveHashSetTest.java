@@ -0,0 +1,84 @@
+package log;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit test of the sets of leak identifiers the log analyzers collect.
+ */
+public class PrimitiveHashSetTest {
+
+	@Test
+	public void int_set_holds_zero_and_negative_values() {
+		IntHashSet set = new IntHashSet();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertTrue(set.add(-1));
+		assertTrue(set.add(Integer.MIN_VALUE));
+		assertTrue(set.add(Integer.MAX_VALUE));
+
+		assertEquals(4, set.size());
+		assertTrue(set.contains(0));
+		assertTrue(set.contains(-1));
+		assertFalse(set.contains(1));
+		assertArrayEquals(new int[] { Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE }, set.toArray());
+	}
+
+	@Test
+	public void int_set_grows() {
+		IntHashSet set = new IntHashSet(1);
+		HashSet<Integer> expected = new HashSet<Integer>();
+		Random random = new Random(7);
+		for (int i = 0; i < 10000; i++) {
+			int value = i % 3 == 0 ? i : random.nextInt(5000) - 2500;
+			assertEquals(expected.add(value), set.add(value));
+		}
+		assertEquals(expected.size(), set.size());
+		for (int value : expected) {
+			assertTrue(set.contains(value));
+		}
+	}
+
+	@Test
+	public void long_set_holds_zero_and_negative_values() {
+		LongHashSet set = new LongHashSet();
+		assertFalse(set.contains(0L));
+
+		assertTrue(set.add(0L));
+		assertFalse(set.add(0L));
+		assertTrue(set.add(-1L));
+		assertTrue(set.add(Long.MIN_VALUE));
+
+		assertEquals(3, set.size());
+		assertTrue(set.contains(0L));
+		assertTrue(set.contains(-1L));
+		assertArrayEquals(new long[] { Long.MIN_VALUE, -1L, 0L }, set.toArray());
+	}
+
+	@Test
+	public void packed_sources_and_sinks_are_distinct() {
+		LongHashSet set = new LongHashSet(1);
+		for (int source = 0; source < 100; source++) {
+			for (int sink = 0; sink < 100; sink++) {
+				assertTrue(set.add(LongHashSet.pack(source, sink)));
+			}
+		}
+		assertEquals(10000, set.size());
+		assertTrue(set.contains(LongHashSet.pack(0, 0)));
+		assertTrue(set.contains(LongHashSet.pack(99, 0)));
+		assertFalse(set.contains(LongHashSet.pack(0, 100)));
+		assertFalse(set.contains(LongHashSet.pack(0, -1)));
+		assertTrue(set.add(LongHashSet.pack(0, -1)));
+		assertFalse(set.contains(LongHashSet.pack(-1, 0)));
+	}
+}
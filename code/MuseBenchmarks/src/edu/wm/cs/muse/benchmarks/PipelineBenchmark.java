@@ -0,0 +1,279 @@
+package edu.wm.cs.muse.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.BadLocationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wm.cs.muse.dataleak.operators.ComplexReachability;
+import edu.wm.cs.muse.dataleak.operators.ReachabilityOperator;
+import edu.wm.cs.muse.dataleak.operators.SinkOperator;
+import edu.wm.cs.muse.dataleak.operators.SourceOperator;
+import edu.wm.cs.muse.dataleak.operators.TaintOperator;
+import edu.wm.cs.muse.dataleak.operators.TaintSinkOperator;
+import edu.wm.cs.muse.dataleak.schemas.ComplexReachabilitySchema;
+import edu.wm.cs.muse.dataleak.schemas.ReachabilitySchema;
+import edu.wm.cs.muse.dataleak.schemas.SinkSchema;
+import edu.wm.cs.muse.dataleak.schemas.SourceSchema;
+import edu.wm.cs.muse.dataleak.schemas.TaintSchema;
+import edu.wm.cs.muse.dataleak.schemas.TaintSinkSchema;
+import edu.wm.cs.muse.dataleak.support.ASTLeakRewriter;
+import edu.wm.cs.muse.dataleak.support.LeakRewriter;
+import edu.wm.cs.muse.dataleak.support.OperatorType;
+import edu.wm.cs.muse.dataleak.support.RewriterType;
+
+/**
+ * Measures each stage of the mutation pipeline over all the sample files:
+ * parsing, visiting the trees with each schema, recording the changes of each
+ * operator and applying the recorded changes to the source. Every invocation
+ * processes all the samples, so the scores are the time per pass over the
+ * samples.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+	@Benchmark
+	public void parse(Samples samples, Blackhole blackhole) {
+		for (String source : samples.sources) {
+			blackhole.consume(samples.parse(source));
+		}
+	}
+
+	@Benchmark
+	public void sourceSchema(Samples samples, Blackhole blackhole) {
+		for (CompilationUnit root : samples.roots) {
+			SourceSchema schema = new SourceSchema();
+			root.accept(schema);
+			blackhole.consume(schema.getNodeChanges());
+		}
+	}
+
+	@Benchmark
+	public void sinkSchema(Samples samples, Blackhole blackhole) {
+		for (int i = 0; i < samples.sinkRoots.length; i++) {
+			SinkSchema schema = new SinkSchema(samples.leakIds(i));
+			samples.sinkRoots[i].accept(schema);
+			blackhole.consume(schema.getNodeChanges());
+		}
+	}
+
+	@Benchmark
+	public void taintSchema(Samples samples, Blackhole blackhole) {
+		for (CompilationUnit root : samples.roots) {
+			TaintSchema schema = new TaintSchema();
+			root.accept(schema);
+			blackhole.consume(schema.getNodeChanges());
+		}
+	}
+
+	@Benchmark
+	public void taintSinkSchema(Samples samples, Blackhole blackhole) {
+		for (int i = 0; i < samples.taintSinkRoots.length; i++) {
+			TaintSinkSchema schema = new TaintSinkSchema(samples.leakIds(i));
+			samples.taintSinkRoots[i].accept(schema);
+			blackhole.consume(schema.getFieldNodeChanges());
+			blackhole.consume(schema.getMethodNodeChanges());
+		}
+	}
+
+	@Benchmark
+	public void reachabilitySchema(Samples samples, Blackhole blackhole) {
+		for (CompilationUnit root : samples.roots) {
+			ReachabilitySchema schema = new ReachabilitySchema();
+			root.accept(schema);
+			blackhole.consume(schema.getNodeChanges());
+		}
+	}
+
+	@Benchmark
+	public void complexReachabilitySchema(Samples samples, Blackhole blackhole) {
+		for (CompilationUnit root : samples.roots) {
+			ComplexReachabilitySchema schema = new ComplexReachabilitySchema();
+			root.accept(schema);
+			blackhole.consume(schema.getNodeChanges());
+		}
+	}
+
+	@Benchmark
+	public void sourceOperator(Schemas schemas, Blackhole blackhole) {
+		for (int i = 0; i < schemas.roots.length; i++) {
+			blackhole.consume(new SourceOperator(new ASTLeakRewriter(schemas.roots[i]),
+					schemas.source[i].getNodeChanges(), schemas.samples.leakIds(i)).InsertChanges());
+		}
+	}
+
+	@Benchmark
+	public void sinkOperator(Schemas schemas, Blackhole blackhole) {
+		for (int i = 0; i < schemas.sinkRoots.length; i++) {
+			blackhole.consume(new SinkOperator(new ASTLeakRewriter(schemas.sinkRoots[i]),
+					schemas.sink[i].getNodeChanges()).InsertChanges());
+		}
+	}
+
+	@Benchmark
+	public void taintOperator(Schemas schemas, Blackhole blackhole) {
+		for (int i = 0; i < schemas.roots.length; i++) {
+			blackhole.consume(new TaintOperator(new ASTLeakRewriter(schemas.roots[i]),
+					schemas.taint[i].getNodeChanges(), schemas.samples.leakIds(i)).InsertChanges());
+		}
+	}
+
+	@Benchmark
+	public void taintSinkOperator(Schemas schemas, Blackhole blackhole) {
+		for (int i = 0; i < schemas.taintSinkRoots.length; i++) {
+			blackhole.consume(new TaintSinkOperator(new ASTLeakRewriter(schemas.taintSinkRoots[i]),
+					schemas.taintSink[i].getFieldNodeChanges(), schemas.taintSink[i].getMethodNodeChanges())
+							.InsertChanges());
+		}
+	}
+
+	@Benchmark
+	public void reachabilityOperator(Schemas schemas, Blackhole blackhole) {
+		for (int i = 0; i < schemas.roots.length; i++) {
+			blackhole.consume(new ReachabilityOperator(new ASTLeakRewriter(schemas.roots[i]),
+					schemas.reachability[i].getNodeChanges(), schemas.samples.leakIds(i)).InsertChanges());
+		}
+	}
+
+	@Benchmark
+	public void complexReachabilityOperator(Schemas schemas, Blackhole blackhole) {
+		for (int i = 0; i < schemas.roots.length; i++) {
+			blackhole.consume(new ComplexReachability(new ASTLeakRewriter(schemas.roots[i]),
+					schemas.complexReachability[i].getNodeChanges(), schemas.samples.leakIds(i)).InsertChanges());
+		}
+	}
+
+	/**
+	 * Applies the changes recorded by the operator to the source, as done when a
+	 * mutant is written.
+	 */
+	@Benchmark
+	public void rewrite(Changes changes, Blackhole blackhole) throws BadLocationException {
+		for (int i = 0; i < changes.rewriters.length; i++) {
+			blackhole.consume(changes.rewriters[i].apply(changes.sources[i]));
+		}
+	}
+
+	/**
+	 * The samples visited by every schema, for the operator benchmarks.
+	 */
+	@State(Scope.Benchmark)
+	public static class Schemas {
+		Samples samples;
+		CompilationUnit[] roots;
+		CompilationUnit[] sinkRoots;
+		CompilationUnit[] taintSinkRoots;
+		SourceSchema[] source;
+		SinkSchema[] sink;
+		TaintSchema[] taint;
+		TaintSinkSchema[] taintSink;
+		ReachabilitySchema[] reachability;
+		ComplexReachabilitySchema[] complexReachability;
+
+		@Setup(Level.Trial)
+		public void setUp(Samples samples) {
+			this.samples = samples;
+			roots = samples.roots;
+			sinkRoots = samples.sinkRoots;
+			taintSinkRoots = samples.taintSinkRoots;
+			int count = roots.length;
+			source = new SourceSchema[count];
+			sink = new SinkSchema[count];
+			taint = new TaintSchema[count];
+			taintSink = new TaintSinkSchema[count];
+			reachability = new ReachabilitySchema[count];
+			complexReachability = new ComplexReachabilitySchema[count];
+			for (int i = 0; i < count; i++) {
+				source[i] = new SourceSchema();
+				roots[i].accept(source[i]);
+				sink[i] = new SinkSchema(samples.leakIds(i));
+				sinkRoots[i].accept(sink[i]);
+				taint[i] = new TaintSchema();
+				roots[i].accept(taint[i]);
+				taintSink[i] = new TaintSinkSchema(samples.leakIds(i));
+				taintSinkRoots[i].accept(taintSink[i]);
+				reachability[i] = new ReachabilitySchema();
+				roots[i].accept(reachability[i]);
+				complexReachability[i] = new ComplexReachabilitySchema();
+				roots[i].accept(complexReachability[i]);
+			}
+		}
+	}
+
+	/**
+	 * The changes recorded by one operator on every sample with one kind of
+	 * rewriter, for the rewrite benchmark.
+	 */
+	@State(Scope.Benchmark)
+	public static class Changes {
+		@Param({ "SOURCE", "SINK", "TAINT", "TAINTSINK", "REACHABILITY", "COMPLEXREACHABILITY" })
+		public OperatorType operator;
+
+		@Param({ "AST", "TEXT" })
+		public RewriterType rewriterType;
+
+		String[] sources;
+		LeakRewriter[] rewriters;
+
+		@Setup(Level.Trial)
+		public void setUp(Samples samples, Schemas schemas) {
+			int count = samples.roots.length;
+			sources = new String[count];
+			rewriters = new LeakRewriter[count];
+			for (int i = 0; i < count; i++) {
+				CompilationUnit root = samples.roots[i];
+				sources[i] = samples.sources[i];
+				LeakRewriter rewriter;
+				switch (operator) {
+				case SOURCE:
+					rewriter = new SourceOperator(rewriterType.newRewriter(root), schemas.source[i].getNodeChanges(),
+							samples.leakIds(i)).InsertChanges();
+					break;
+				case SINK:
+					root = samples.sinkRoots[i];
+					sources[i] = samples.sinkSources[i];
+					rewriter = new SinkOperator(rewriterType.newRewriter(root), schemas.sink[i].getNodeChanges())
+							.InsertChanges();
+					break;
+				case TAINT:
+					rewriter = new TaintOperator(rewriterType.newRewriter(root), schemas.taint[i].getNodeChanges(),
+							samples.leakIds(i)).InsertChanges();
+					break;
+				case TAINTSINK:
+					root = samples.taintSinkRoots[i];
+					sources[i] = samples.taintSinkSources[i];
+					rewriter = new TaintSinkOperator(rewriterType.newRewriter(root),
+							schemas.taintSink[i].getFieldNodeChanges(), schemas.taintSink[i].getMethodNodeChanges())
+									.InsertChanges();
+					break;
+				case REACHABILITY:
+					rewriter = new ReachabilityOperator(rewriterType.newRewriter(root),
+							schemas.reachability[i].getNodeChanges(), samples.leakIds(i)).InsertChanges();
+					break;
+				default:
+					rewriter = new ComplexReachability(rewriterType.newRewriter(root),
+							schemas.complexReachability[i].getNodeChanges(), samples.leakIds(i)).InsertChanges();
+					break;
+				}
+				rewriters[i] = rewriter;
+			}
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package edu.wm.cs.muse.benchmarks;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.BadLocationException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import edu.wm.cs.muse.dataleak.operators.SourceOperator;
+import edu.wm.cs.muse.dataleak.operators.TaintOperator;
+import edu.wm.cs.muse.dataleak.schemas.SourceSchema;
+import edu.wm.cs.muse.dataleak.schemas.TaintSchema;
+import edu.wm.cs.muse.dataleak.support.ASTLeakRewriter;
+import edu.wm.cs.muse.dataleak.support.FileUtility;
+import edu.wm.cs.muse.dataleak.support.LeakIdAllocator;
+import edu.wm.cs.muse.dataleak.support.LeakIdRange;
+import edu.wm.cs.muse.dataleak.support.LeakRewriter;
+import edu.wm.cs.muse.mdroid.ParserEnvironment;
+
+/**
+ * The java files of the samples folder, read and parsed once per trial. Besides
+ * the trees of the original sources, it keeps the trees the second phase of
+ * SINK and TAINTSINK works on: the sources with the leak sources, respectively
+ * the tainted fields, already inserted.
+ *
+ * The operators print every leak they insert, so standard output is discarded
+ * while the benchmarks run.
+ */
+@State(Scope.Benchmark)
+public class Samples {
+
+	/**
+	 * folder of the sample source files, relative to the working directory
+	 */
+	@Param("../../interesting_samples")
+	public String samplesFolder;
+
+	/**
+	 * folder of the jars of libs4ast, or empty to parse without them
+	 */
+	@Param("")
+	public String binariesFolder;
+
+	/**
+	 * whether to resolve bindings, which none of the operators needs
+	 */
+	@Param("false")
+	public boolean resolveBindings;
+
+	String[] sources;
+	CompilationUnit[] roots;
+	String[] sinkSources;
+	CompilationUnit[] sinkRoots;
+	String[] taintSinkSources;
+	CompilationUnit[] taintSinkRoots;
+
+	private final LeakIdAllocator leakIdAllocator = new LeakIdAllocator();
+	private ParserEnvironment parserEnvironment;
+	private PrintStream out;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, BadLocationException {
+		out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+		}));
+
+		File[] files = new File(samplesFolder).listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(".java");
+			}
+		});
+		if (files == null || files.length == 0) {
+			throw new IllegalStateException("No java files in " + new File(samplesFolder).getAbsolutePath());
+		}
+		Arrays.sort(files);
+		parserEnvironment = new ParserEnvironment(binariesFolder.isEmpty() ? null : binariesFolder, samplesFolder);
+
+		sources = new String[files.length];
+		roots = new CompilationUnit[files.length];
+		sinkSources = new String[files.length];
+		sinkRoots = new CompilationUnit[files.length];
+		taintSinkSources = new String[files.length];
+		taintSinkRoots = new CompilationUnit[files.length];
+		for (int i = 0; i < files.length; i++) {
+			sources[i] = FileUtility.readSourceFile(files[i].getAbsolutePath()).toString();
+			roots[i] = parse(sources[i]);
+
+			SourceSchema sourceSchema = new SourceSchema();
+			roots[i].accept(sourceSchema);
+			LeakRewriter rewriter = new SourceOperator(new ASTLeakRewriter(roots[i]),
+					sourceSchema.getNodeChanges(), leakIds(i)).InsertChanges();
+			sinkSources[i] = rewriter.apply(sources[i]);
+			sinkRoots[i] = parse(sinkSources[i]);
+
+			TaintSchema taintSchema = new TaintSchema();
+			roots[i].accept(taintSchema);
+			rewriter = new TaintOperator(new ASTLeakRewriter(roots[i]), taintSchema.getNodeChanges(),
+					leakIds(i)).InsertChanges();
+			taintSinkSources[i] = rewriter.apply(sources[i]);
+			taintSinkRoots[i] = parse(taintSinkSources[i]);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.setOut(out);
+	}
+
+	CompilationUnit parse(String source) {
+		return parserEnvironment.parse(source, resolveBindings);
+	}
+
+	/**
+	 * @return fresh leak identifiers for the i-th file, so that repeated
+	 *         invocations never run out of them
+	 */
+	LeakIdRange leakIds(int i) {
+		return leakIdAllocator.getRange(i);
+	}
+}
@@ -71,16 +71,36 @@ echo finished executing {}
         project_name, mutation, mutation)
 
 
+def content_in_sh_all_schemas(project: str, project_name: str,
+                              output_dir: str):
+    # a single invocation parses each source file once for all the
+    # mutation types, writing to schemas/<mutation>/<project_name>
+    template_schema_apply = """#!/bin/sh
+/Library/Java/JavaVirtualMachines/adoptopenjdk-8.jdk/Contents/Home/bin/java -jar {} /Users/amitseal/muse/libs4ast {} {} {} {} > {}_all.log
+echo finished executing {}
+    """
+    mutations = ",".join(mutation_types)
+    return template_schema_apply.format(
+        path_to_muse_jar, project, project_name,
+        output_dir + project_name + "/schemas/", mutations,
+        project_name, mutations)
+
+
 def content_in_all_schema_sh_file(project_name: str, project_path: str,
                                   output_dir: str):
     sh_file_path = output_dir+project_name + \
         "/sh_files/"+"all_schema"+".sh"
     make_sh_file_with_x_bit(sh_file_path)
     sh_clean_project_folder(project_path)
+    all_mutations_sh_file_path = output_dir+project_name + \
+        "/sh_files/"+project_name+"_all.sh"
+    make_sh_file_with_x_bit(all_mutations_sh_file_path)
+    open(all_mutations_sh_file_path, mode="w").write(
+        content_in_sh_all_schemas(project_path, project_name, output_dir))
     temp_string: str = "sh clean_project_folder.sh\n"
-    for mutation in mutation_types:
-        temp_string += "echo " + project_name + " " + mutation + "\n"
-        temp_string += "sh " + project_name + "_" + mutation + ".sh\n"
+    temp_string += "echo " + project_name + " " + \
+        ",".join(mutation_types) + "\n"
+    temp_string += "sh " + project_name + "_all.sh\n"
     open(sh_file_path, mode="w").write(temp_string)
 
 